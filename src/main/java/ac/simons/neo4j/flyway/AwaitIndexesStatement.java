@@ -0,0 +1,271 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+/**
+ * A synthetic statement inserted by {@link Neo4jFlywayParser} after one or more schema
+ * statements. Indexes are populated in the background, so several of them can populate
+ * concurrently while this statement waits once for all of them to come online, reporting
+ * progress as it goes. Inside a transaction nothing has been created yet, so there is
+ * nothing to wait for.
+ * <p>
+ * Only the indexes created by the schema statements {@link #track(SqlStatement) tracked}
+ * by this barrier are awaited: Those named in the statements, and those that appeared
+ * while the statements ran, covering unnamed indexes and the ones backing constraints.
+ * Indexes populating or failed for other reasons don't affect the migration.
+ *
+ * @author Michael J. Simons
+ */
+final class AwaitIndexesStatement implements SqlStatement {
+
+	private static final Log LOG = LogFactory.getLog(AwaitIndexesStatement.class);
+
+	private static final Pattern INDEX_NAME = Pattern.compile(
+			"(?i)^CREATE\\s+(?:(?:RANGE|TEXT|POINT|LOOKUP|FULLTEXT|VECTOR|BTREE)\\s+)?(?:INDEX|CONSTRAINT)\\s+"
+					+ "(?!(?:IF|FOR|ON)\\b)(`(?:[^`]|``)+`|[\\p{L}_][\\p{L}\\p{N}_]*)");
+
+	private static final String ALL_INDEXES = "/*+ NEO4J FORCE_CYPHER */ SHOW INDEXES YIELD name RETURN name";
+
+	private static final String QUERY = """
+			/*+ NEO4J FORCE_CYPHER */
+			SHOW INDEXES YIELD name, state, populationPercent
+			WHERE state <> 'ONLINE'
+			RETURN name, state, populationPercent
+			ORDER BY name
+			""";
+
+	private static final long POLL_INTERVAL_MILLIS = 500;
+
+	private final SqlStatement trigger;
+
+	private final Duration timeout;
+
+	private final Set<String> names = new LinkedHashSet<>();
+
+	AwaitIndexesStatement(SqlStatement trigger, Duration timeout) {
+		this.trigger = trigger;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Wraps a schema statement, so that the indexes it creates are awaited by this
+	 * barrier.
+	 * @param schemaStatement the statement creating an index or constraint
+	 * @return a statement to execute instead
+	 */
+	SqlStatement track(SqlStatement schemaStatement) {
+		indexName(schemaStatement.getSql()).ifPresent(this.names::add);
+		return new TrackedStatement(schemaStatement);
+	}
+
+	static Optional<String> indexName(String sql) {
+		var matcher = INDEX_NAME.matcher(Neo4jFlywayParser.stripLeadingComments(sql));
+		if (!matcher.find()) {
+			return Optional.empty();
+		}
+		var name = matcher.group(1);
+		return Optional.of(name.startsWith("`") ? name.substring(1, name.length() - 1).replace("``", "`") : name);
+	}
+
+	@Override
+	public int getLineNumber() {
+		return this.trigger.getLineNumber();
+	}
+
+	@Override
+	public String getSql() {
+		return QUERY;
+	}
+
+	@Override
+	public String getDelimiter() {
+		return this.trigger.getDelimiter();
+	}
+
+	@Override
+	public boolean canExecuteInTransaction() {
+		return true;
+	}
+
+	@Override
+	public boolean isBatchable() {
+		return false;
+	}
+
+	@Override
+	public Results execute(JdbcTemplate jdbcTemplate, SqlScriptExecutor sqlScriptExecutor, Configuration config) {
+		var results = new Results();
+		try {
+			if (!jdbcTemplate.getConnection().getAutoCommit()) {
+				LOG.debug("Not waiting for indexes inside a transaction");
+				return results;
+			}
+			if (this.names.isEmpty()) {
+				return results;
+			}
+			awaitIndexes(jdbcTemplate);
+		}
+		catch (SQLException ex) {
+			results.setException(ex);
+		}
+		return results;
+	}
+
+	private void awaitIndexes(JdbcTemplate jdbcTemplate) throws SQLException {
+		var start = System.nanoTime();
+		var deadline = start + this.timeout.toNanos();
+		var lastProgress = "";
+		while (true) {
+			var pending = jdbcTemplate
+				.query(QUERY,
+						rs -> new IndexState(rs.getString("name"), rs.getString("state"),
+								rs.getDouble("populationPercent")))
+				.stream()
+				.filter(i -> this.names.contains(i.name()))
+				.toList();
+			var failed = pending.stream().filter(IndexState::failed).map(IndexState::name).toList();
+			if (!failed.isEmpty()) {
+				throw new SQLException("Population of index(es) %s failed".formatted(failed));
+			}
+			if (pending.isEmpty()) {
+				break;
+			}
+			if (lastProgress.isEmpty()) {
+				Neo4jFlywayMetrics.get().awaited(pending.size());
+			}
+			var progress = progress(pending);
+			if (!progress.equals(lastProgress)) {
+				LOG.info("Waiting for indexes to come online: " + progress);
+				lastProgress = progress;
+			}
+			if (System.nanoTime() - deadline > 0) {
+				throw new SQLException("Indexes %s did not come online within %s"
+					.formatted(pending.stream().map(IndexState::name).toList(), this.timeout));
+			}
+			try {
+				Thread.sleep(POLL_INTERVAL_MILLIS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for indexes to come online", ex);
+			}
+		}
+		if (!lastProgress.isEmpty()) {
+			LOG.info("All indexes online after %d ms"
+				.formatted(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+		}
+	}
+
+	private static String progress(List<IndexState> pending) {
+		return pending.stream()
+			.map(i -> "%s %.0f%%".formatted(i.name(), i.populationPercent()))
+			.collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * A schema statement recording the names of the indexes that appear while it runs.
+	 */
+	private final class TrackedStatement implements SqlStatement {
+
+		private final SqlStatement delegate;
+
+		TrackedStatement(SqlStatement delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int getLineNumber() {
+			return this.delegate.getLineNumber();
+		}
+
+		@Override
+		public String getSql() {
+			return this.delegate.getSql();
+		}
+
+		@Override
+		public String getDelimiter() {
+			return this.delegate.getDelimiter();
+		}
+
+		@Override
+		public boolean canExecuteInTransaction() {
+			return this.delegate.canExecuteInTransaction();
+		}
+
+		@Override
+		public boolean isBatchable() {
+			return false;
+		}
+
+		@Override
+		public Results execute(JdbcTemplate jdbcTemplate, SqlScriptExecutor sqlScriptExecutor, Configuration config) {
+			Set<String> before;
+			try {
+				before = jdbcTemplate.getConnection().getAutoCommit()
+						? new HashSet<>(jdbcTemplate.queryForStringList(ALL_INDEXES)) : null;
+			}
+			catch (SQLException ex) {
+				var results = new Results();
+				results.setException(ex);
+				return results;
+			}
+
+			var results = this.delegate.execute(jdbcTemplate, sqlScriptExecutor, config);
+			if (before != null && results.getException() == null) {
+				try {
+					jdbcTemplate.queryForStringList(ALL_INDEXES)
+						.stream()
+						.filter(name -> !before.contains(name))
+						.forEach(AwaitIndexesStatement.this.names::add);
+				}
+				catch (SQLException ex) {
+					results.setException(ex);
+				}
+			}
+			return results;
+		}
+
+	}
+
+	private record IndexState(String name, String state, double populationPercent) {
+
+		boolean failed() {
+			return "FAILED".equalsIgnoreCase(this.state);
+		}
+
+	}
+
+}
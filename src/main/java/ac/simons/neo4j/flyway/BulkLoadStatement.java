@@ -0,0 +1,276 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.flywaydb.core.api.ResourceProvider;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.api.resource.Resource;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+/**
+ * A statement using {@code $rows}, paired with a local CSV or JSON Lines file. The file
+ * is streamed and the statement is run once per batch of rows, with the batch as
+ * {@code $rows}, so that neither the client nor the server need to hold the whole file
+ * in memory, and no server-side file access as with {@code LOAD CSV} is needed.
+ * <p>
+ * The file is either named like the migration, with {@code .csv} or {@code .jsonl}
+ * instead of its extension, or given with the {@code rows} directive, relative to the
+ * migration. The {@code batch-size} directive overrides
+ * {@link Neo4jFlywayOptions#bulkLoadBatchSize()}. Flyway computes the checksum of a
+ * migration from the script alone. Pinning the checksum of the file with the
+ * {@code checksum} directive puts the file under Flyway's validation, too: A changed
+ * file then fails before anything is loaded, and updating the pinned checksum changes
+ * the checksum of the migration. Loading a file without a pinned checksum logs a
+ * warning containing the checksum to pin. With a {@link Throttle}, batches are at most
+ * as large as it allows.
+ *
+ * @author Michael J. Simons
+ */
+final class BulkLoadStatement implements SqlStatement {
+
+	static final Pattern ROWS_PARAMETER = Pattern.compile("\\$rows\\b");
+
+	private static final Log LOG = LogFactory.getLog(BulkLoadStatement.class);
+
+	private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+	private final SqlStatement statement;
+
+	private final DataFile dataFile;
+
+	private final String sql;
+
+	private final int batchSize;
+
+	private final Integer expectedChecksum;
+
+	private final Throttle throttle;
+
+	private BulkLoadStatement(SqlStatement statement, DataFile dataFile, int batchSize, Integer expectedChecksum,
+			Throttle throttle) {
+		this.statement = statement;
+		this.dataFile = dataFile;
+		this.sql = ROWS_PARAMETER.matcher(statement.getSql()).replaceAll("\\$1");
+		this.batchSize = batchSize;
+		this.expectedChecksum = expectedChecksum;
+		this.throttle = throttle;
+	}
+
+	Throttle getThrottle() {
+		return this.throttle;
+	}
+
+	/**
+	 * Pairs a statement using {@code $rows} with its file of rows, if there is one.
+	 * @param configuration the current configuration
+	 * @param resourceProvider the provider of the migration, might be {@literal null}
+	 * @param script the migration that contains the statement
+	 * @param statement the statement
+	 * @param throttle the throttle of the migration, might be {@literal null}
+	 * @return a bulk load statement or an empty optional
+	 */
+	static Optional<SqlStatement> of(Configuration configuration, ResourceProvider resourceProvider, Resource script,
+			SqlStatement statement, Throttle throttle) {
+		var sql = statement.getSql();
+		if (!ROWS_PARAMETER.matcher(sql).find()) {
+			return Optional.empty();
+		}
+		var directives = Directives.of(sql);
+		var candidates = directives.get("rows")
+			.map(List::of)
+			.orElseGet(() -> List.of(baseName(script) + ".csv", baseName(script) + ".jsonl"));
+		var encoding = configuration.getEncoding();
+		return candidates.stream()
+			.map(candidate -> resolve(resourceProvider, script, candidate, encoding))
+			.flatMap(Optional::stream)
+			.findFirst()
+			.map(dataFile -> new BulkLoadStatement(statement, dataFile,
+					Math.max(1, directives.getInt("batch-size").orElseGet(Neo4jFlywayOptions::bulkLoadBatchSize)),
+					directives.getInt("checksum").orElse(null), throttle));
+	}
+
+	@Override
+	public int getLineNumber() {
+		return this.statement.getLineNumber();
+	}
+
+	@Override
+	public String getSql() {
+		return this.sql;
+	}
+
+	@Override
+	public String getDelimiter() {
+		return this.statement.getDelimiter();
+	}
+
+	@Override
+	public boolean canExecuteInTransaction() {
+		return this.statement.canExecuteInTransaction();
+	}
+
+	@Override
+	public boolean isBatchable() {
+		return false;
+	}
+
+	@Override
+	public Results execute(JdbcTemplate jdbcTemplate, SqlScriptExecutor sqlScriptExecutor, Configuration config) {
+		var results = new Results();
+		try {
+			if (this.expectedChecksum != null) {
+				verifyChecksum();
+			}
+			load(jdbcTemplate.getConnection());
+		}
+		catch (SQLException ex) {
+			results.setException(ex);
+		}
+		catch (IOException | UncheckedIOException ex) {
+			results.setException(new SQLException(
+					"Could not read rows from %s: %s".formatted(this.dataFile.name(), ex.getMessage()), ex));
+		}
+		return results;
+	}
+
+	private void verifyChecksum() throws IOException {
+		try (var rows = RowReader.open(this.dataFile.name(), this.dataFile.open())) {
+			while (rows.next() != null) {
+				// Only the checksum is of interest
+			}
+			if (rows.getChecksum() != this.expectedChecksum) {
+				throw new IOException("Checksum mismatch for %s: expected %d, but the file has %d"
+					.formatted(this.dataFile.name(), this.expectedChecksum, rows.getChecksum()));
+			}
+		}
+	}
+
+	private void load(Connection connection) throws IOException, SQLException {
+		var start = System.nanoTime();
+		var lastProgress = start;
+		var total = 0L;
+		try (var rows = RowReader.open(this.dataFile.name(), this.dataFile.open());
+				var stmt = connection.prepareStatement(this.sql)) {
+			var batch = new ArrayList<Map<String, Object>>(this.batchSize);
+			for (var row = rows.next(); row != null; row = rows.next()) {
+				batch.add(row);
+				if (batch.size() >= nextBatchSize()) {
+					total += flush(stmt, batch);
+					if (System.nanoTime() - lastProgress > PROGRESS_INTERVAL_NANOS) {
+						lastProgress = System.nanoTime();
+						LOG.info("Loaded %d rows from %s (%.0f rows/s)".formatted(total, this.dataFile.name(),
+								total / ((lastProgress - start) / 1e9)));
+					}
+				}
+			}
+			total += flush(stmt, batch);
+			LOG.info("Loaded %d rows from %s in %d ms, checksum %d".formatted(total, this.dataFile.name(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), rows.getChecksum()));
+			if (this.expectedChecksum == null) {
+				LOG.warn("Changes to %s won't be detected by Flyway, pin its checksum with '%s checksum=%d'"
+					.formatted(this.dataFile.name(), Directives.PREFIX, rows.getChecksum()));
+			}
+		}
+	}
+
+	private int nextBatchSize() {
+		return (this.throttle != null) ? this.throttle.batchSize(this.batchSize) : this.batchSize;
+	}
+
+	private int flush(PreparedStatement stmt, List<Map<String, Object>> batch) throws SQLException {
+		if (batch.isEmpty()) {
+			return 0;
+		}
+		var start = System.nanoTime();
+		stmt.setObject(1, batch);
+		stmt.execute();
+		var size = batch.size();
+		batch.clear();
+		if (this.throttle != null) {
+			this.throttle.completed(size, System.nanoTime() - start);
+		}
+		return size;
+	}
+
+	private static String baseName(Resource script) {
+		var filename = script.getFilename();
+		var extension = filename.lastIndexOf('.');
+		return (extension > 0) ? filename.substring(0, extension) : filename;
+	}
+
+	private static Optional<DataFile> resolve(ResourceProvider resourceProvider, Resource script, String name,
+			Charset encoding) {
+		if (!RowReader.isSupported(name)) {
+			return Optional.empty();
+		}
+		var relativePath = script.getRelativePath();
+		if (resourceProvider != null && relativePath != null) {
+			var directory = relativePath.substring(0, relativePath.lastIndexOf('/') + 1);
+			var resource = resourceProvider.getResource(directory + name);
+			if (resource != null) {
+				return Optional.of(new DataFile(name, resource::read));
+			}
+		}
+		var pathOnDisk = script.getAbsolutePathOnDisk();
+		if (pathOnDisk != null && !pathOnDisk.isBlank()) {
+			var path = Path.of(pathOnDisk).resolveSibling(name);
+			if (Files.isRegularFile(path)) {
+				return Optional.of(new DataFile(name, () -> Files.newBufferedReader(path, encoding)));
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Opens a reader.
+	 */
+	@FunctionalInterface
+	private interface ReaderSupplier {
+
+		Reader get() throws IOException;
+
+	}
+
+	private record DataFile(String name, ReaderSupplier source) {
+
+		Reader open() throws IOException {
+			return this.source.get();
+		}
+
+	}
+
+}
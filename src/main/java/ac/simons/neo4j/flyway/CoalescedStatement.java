@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+/**
+ * Consecutive statements of the same {@link StatementShape shape}, run as a single
+ * {@code UNWIND} over their literals: The query is planned once and sent once, instead of
+ * once per statement. Created by {@link Neo4jFlywayParser} if enabled via
+ * {@link Neo4jFlywayOptions#coalesceStatements()}. The {@code UNWIND} runs on the
+ * connection of the migration and therefore inside its transaction, if any. With a
+ * {@link Throttle}, the statements are sent in batches of the size it allows.
+ *
+ * @author Michael J. Simons
+ */
+final class CoalescedStatement implements SqlStatement {
+
+	private static final Log LOG = LogFactory.getLog(CoalescedStatement.class);
+
+	private final SqlStatement first;
+
+	private final String sql;
+
+	private final List<Map<String, Object>> rows;
+
+	private final Throttle throttle;
+
+	CoalescedStatement(SqlStatement first, StatementShape shape, List<Map<String, Object>> rows,
+			Throttle throttle) {
+		this.first = first;
+		this.sql = shape.toUnwind();
+		this.rows = List.copyOf(rows);
+		this.throttle = throttle;
+	}
+
+	Throttle getThrottle() {
+		return this.throttle;
+	}
+
+	/**
+	 * {@return the first of the coalesced statements}
+	 */
+	SqlStatement getFirst() {
+		return this.first;
+	}
+
+	/**
+	 * {@return the number of coalesced statements}
+	 */
+	int size() {
+		return this.rows.size();
+	}
+
+	@Override
+	public int getLineNumber() {
+		return this.first.getLineNumber();
+	}
+
+	@Override
+	public String getSql() {
+		return this.sql;
+	}
+
+	@Override
+	public String getDelimiter() {
+		return this.first.getDelimiter();
+	}
+
+	@Override
+	public boolean canExecuteInTransaction() {
+		return this.first.canExecuteInTransaction();
+	}
+
+	@Override
+	public boolean isBatchable() {
+		return false;
+	}
+
+	@Override
+	public Results execute(JdbcTemplate jdbcTemplate, SqlScriptExecutor sqlScriptExecutor, Configuration config) {
+		var results = new Results();
+		LOG.debug("Running %d statements starting at line %d as one".formatted(this.rows.size(), getLineNumber()));
+		try (var stmt = jdbcTemplate.getConnection().prepareStatement(this.sql)) {
+			if (this.throttle == null) {
+				stmt.setObject(1, this.rows);
+				stmt.execute();
+				return results;
+			}
+			for (int offset = 0; offset < this.rows.size();) {
+				var batch = this.rows.subList(offset,
+						Math.min(this.rows.size(), offset + this.throttle.batchSize(this.rows.size())));
+				var start = System.nanoTime();
+				stmt.setObject(1, batch);
+				stmt.execute();
+				this.throttle.completed(batch.size(), System.nanoTime() - start);
+				offset += batch.size();
+			}
+		}
+		catch (SQLException ex) {
+			results.setException(ex);
+		}
+		return results;
+	}
+
+}
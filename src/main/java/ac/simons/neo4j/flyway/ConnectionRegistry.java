@@ -0,0 +1,312 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ac.simons.neo4j.flyway.api.Neo4jFlywayDriver;
+import ac.simons.neo4j.flyway.api.Neo4jFlywayRegistry;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+
+/**
+ * An opt-in, process-wide registry of warm connections, enabled with
+ * {@code neo4j.flyway.registry.enabled}. Flyway opens a new connection for every command,
+ * and with it a new routing table, a new TLS handshake and a new authentication, and
+ * bootstraps the constraints of the schema history again. Tools running many commands in
+ * the same JVM, such as build plugins or tests, pay for that over and over.
+ * <p>
+ * With the registry enabled, Flyway connects through {@link Neo4jFlywayDriver}. Closing a
+ * connection handed out by it resets the connection and keeps it idle for the next
+ * command with the same URL and connection properties, password included, up to
+ * {@code neo4j.flyway.registry.max-idle} connections each. Idle connections are validated
+ * before they are reused. The registry also remembers which databases have been
+ * bootstrapped already.
+ * <p>
+ * All idle connections are closed by a shutdown hook, or when {@link #close()} is called
+ * explicitly, usually via {@link Neo4jFlywayRegistry}. Connections obtained after that
+ * are not kept anymore.
+ *
+ * @author Michael J. Simons
+ */
+public final class ConnectionRegistry implements AutoCloseable {
+
+	private static final Log LOG = LogFactory.getLog(ConnectionRegistry.class);
+
+	private static final String DRIVER_CLASS = "org.neo4j.jdbc.Neo4jDriver";
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+	private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+	private final Set<Database> bootstrapped = ConcurrentHashMap.newKeySet();
+
+	private final int maxIdle;
+
+	private final DriverSupplier driverSupplier;
+
+	private volatile Driver driver;
+
+	private volatile boolean closed;
+
+	/**
+	 * {@return the process-wide registry}
+	 */
+	public static ConnectionRegistry getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	ConnectionRegistry(int maxIdle, DriverSupplier driverSupplier) {
+		this.maxIdle = maxIdle;
+		this.driverSupplier = driverSupplier;
+	}
+
+	/**
+	 * Closes all idle connections and forgets about bootstrapped databases. Connections in
+	 * use are closed when they are returned.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		for (var entry : this.entries.values()) {
+			drain(entry);
+		}
+		this.entries.clear();
+		this.bootstrapped.clear();
+	}
+
+	/**
+	 * Hands out an idle connection for the given URL and connection properties, or opens
+	 * a new one.
+	 * @param url the JDBC URL
+	 * @param info the connection properties
+	 * @return a connection that is kept idle once closed, or {@literal null} if the
+	 * driver doesn't accept the URL
+	 * @throws SQLException if a new connection cannot be opened
+	 */
+	public Connection getConnection(String url, Properties info) throws SQLException {
+		if (this.closed) {
+			return driver().connect(url, info);
+		}
+
+		var entry = this.entries.computeIfAbsent(Key.of(url, info), k -> new Entry());
+		Connection connection;
+		while ((connection = entry.idle.pollFirst()) != null) {
+			if (isValid(connection)) {
+				Neo4jFlywayMetrics.get().reused();
+				return lease(entry, connection);
+			}
+			closeQuietly(connection);
+		}
+		connection = driver().connect(url, info);
+		return (connection != null) ? lease(entry, connection) : null;
+	}
+
+	boolean isBootstrapped(String url, String user) {
+		return this.bootstrapped.contains(new Database(url, user));
+	}
+
+	void bootstrapped(String url, String user) {
+		if (!this.closed) {
+			this.bootstrapped.add(new Database(url, user));
+		}
+	}
+
+	/**
+	 * {@return the driver that actually opens connections}
+	 * @throws SQLException if the driver cannot be loaded
+	 */
+	public Driver driver() throws SQLException {
+		var result = this.driver;
+		if (result == null) {
+			synchronized (this) {
+				result = this.driver;
+				if (result == null) {
+					result = this.driverSupplier.get();
+					this.driver = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private Connection lease(Entry entry, Connection connection) {
+		var returned = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(ConnectionRegistry.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "close" -> {
+							if (returned.compareAndSet(false, true)) {
+								release(entry, connection);
+							}
+							return null;
+						}
+						case "isClosed" -> {
+							return returned.get() || connection.isClosed();
+						}
+						default -> {
+							if (returned.get()) {
+								throw new SQLException("Connection has been closed");
+							}
+							try {
+								return method.invoke(connection, args);
+							}
+							catch (InvocationTargetException ex) {
+								throw ex.getCause();
+							}
+						}
+					}
+				});
+	}
+
+	private void release(Entry entry, Connection connection) {
+		try {
+			if (!this.closed && !connection.isClosed() && entry.idle.size() < this.maxIdle) {
+				if (!connection.getAutoCommit()) {
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				if (connection.isReadOnly()) {
+					connection.setReadOnly(false);
+				}
+				connection.clearWarnings();
+				entry.idle.offerFirst(connection);
+				// The registry might have been closed in the meantime
+				if (this.closed) {
+					drain(entry);
+				}
+				return;
+			}
+		}
+		catch (SQLException ex) {
+			LOG.debug("Could not reset connection, closing it: " + ex.getMessage());
+		}
+		closeQuietly(connection);
+	}
+
+	private static boolean isValid(Connection connection) {
+		try {
+			return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		}
+		catch (SQLException ex) {
+			return false;
+		}
+	}
+
+	private static void drain(Entry entry) {
+		Connection connection;
+		while ((connection = entry.idle.pollFirst()) != null) {
+			closeQuietly(connection);
+		}
+	}
+
+	private static void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		}
+		catch (SQLException ex) {
+			LOG.debug("Could not close connection: " + ex.getMessage());
+		}
+	}
+
+	private static Driver loadDriver() throws SQLException {
+		// JDBC drivers are services, so this works in native images without further
+		// metadata, given the driver is on the image's class path
+		var classLoader = Thread.currentThread().getContextClassLoader();
+		try {
+			return ServiceLoader
+				.load(Driver.class, (classLoader != null) ? classLoader : ConnectionRegistry.class.getClassLoader())
+				.stream()
+				.filter(provider -> DRIVER_CLASS.equals(provider.type().getName()))
+				.findFirst()
+				.map(ServiceLoader.Provider::get)
+				.orElseThrow(() -> new SQLException("Could not load " + DRIVER_CLASS));
+		}
+		catch (ServiceConfigurationError ex) {
+			throw new SQLException("Could not load " + DRIVER_CLASS, ex);
+		}
+	}
+
+	/**
+	 * Provides the driver that actually opens connections.
+	 */
+	@FunctionalInterface
+	interface DriverSupplier {
+
+		Driver get() throws SQLException;
+
+	}
+
+	/**
+	 * Identifies interchangeable connections. The connection properties are only kept as
+	 * digest, so that the password is not held in clear text.
+	 */
+	private record Key(String url, String user, String properties) {
+
+		static Key of(String url, Properties info) {
+			try {
+				var digest = MessageDigest.getInstance("SHA-256");
+				for (var name : info.stringPropertyNames().stream().sorted().toList()) {
+					digest.update((name + "=" + info.getProperty(name) + "\n").getBytes(StandardCharsets.UTF_8));
+				}
+				return new Key(url, info.getProperty("user"), HexFormat.of().formatHex(digest.digest()));
+			}
+			catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+
+	}
+
+	private record Database(String url, String user) {
+	}
+
+	private static final class Entry {
+
+		private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+
+	}
+
+	private static final class Holder {
+
+		private static final ConnectionRegistry INSTANCE = create();
+
+		private static ConnectionRegistry create() {
+			var registry = new ConnectionRegistry(Neo4jFlywayOptions.registryMaxIdle(),
+					ConnectionRegistry::loadDriver);
+			Runtime.getRuntime().addShutdownHook(new Thread(registry::close, "neo4j-flyway-registry-shutdown"));
+			return registry;
+		}
+
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.flywaydb.core.api.FlywayException;
+
+/**
+ * Directives for this plugin inside migration scripts, written as line comments in front
+ * of a statement:
+ * <pre>
+ * // neo4j-flyway: rows=people.csv batch-size=500
+ * UNWIND $rows AS row CREATE (:Person {name: row.name})
+ * </pre>
+ * <p>
+ * Neo4j ignores them as any other comment. Flyways parser doesn't know about
+ * {@code //} comments, so they end up in the text of the statement that follows them.
+ *
+ * @author Michael J. Simons
+ */
+final class Directives {
+
+	static final String PREFIX = "// neo4j-flyway:";
+
+	private final Map<String, String> values;
+
+	private Directives(Map<String, String> values) {
+		this.values = values;
+	}
+
+	/**
+	 * Reads the directives in the leading comments of a statement.
+	 * @param sql the statement
+	 * @return the directives, might be empty
+	 */
+	static Directives of(String sql) {
+		var leadingComments = sql.substring(0, sql.length() - Neo4jFlywayParser.stripLeadingComments(sql).length());
+		var values = new LinkedHashMap<String, String>();
+		leadingComments.lines()
+			.map(String::strip)
+			.filter(line -> line.startsWith(PREFIX))
+			.flatMap(line -> Arrays.stream(line.substring(PREFIX.length()).strip().split("\\s+")))
+			.filter(token -> !token.isEmpty())
+			.forEach(token -> {
+				var separator = token.indexOf('=');
+				var key = ((separator < 0) ? token : token.substring(0, separator)).toLowerCase(Locale.ROOT);
+				values.put(key, (separator < 0) ? "true" : token.substring(separator + 1));
+			});
+		return new Directives(values);
+	}
+
+	Optional<String> get(String key) {
+		return Optional.ofNullable(this.values.get(key));
+	}
+
+	/**
+	 * {@return the value of the directive as integer}
+	 * @param key the name of the directive
+	 * @throws FlywayException if the value is not an integer
+	 */
+	Optional<Integer> getInt(String key) {
+		return get(key, Integer::valueOf);
+	}
+
+	/**
+	 * {@return the value of the directive as duration}
+	 * @param key the name of the directive
+	 * @throws FlywayException if the value is not a duration
+	 * @see Neo4jFlywayOptions#parseDuration(String)
+	 */
+	Optional<Duration> getDuration(String key) {
+		return get(key, Neo4jFlywayOptions::parseDuration);
+	}
+
+	private <T> Optional<T> get(String key, Function<String, T> converter) {
+		return get(key).map(value -> {
+			try {
+				return converter.apply(value);
+			}
+			catch (IllegalArgumentException | DateTimeException ex) {
+				throw new FlywayException("Invalid value for directive %s: %s".formatted(key, value));
+			}
+		});
+	}
+
+	boolean isEmpty() {
+		return this.values.isEmpty();
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.SQLException;
+import java.util.Objects;
+
+import ac.simons.neo4j.flyway.api.Neo4jFlywayHistory;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+
+/**
+ * Maintenance operations on the schema history of Neo4j databases, available to users
+ * through {@link Neo4jFlywayHistory}.
+ *
+ * @author Michael J. Simons
+ */
+public final class History {
+
+	private static final String COMPACT_STATEMENT = """
+			/*+ NEO4J FORCE_CYPHER */
+			CREATE (l:__Neo4jMigrationsLock {id: randomUUID(), name: $1})
+			WITH l
+			CALL () {
+				MATCH (t:__Neo4jMigration:%1$s)
+				WHERE coalesce(t.flyway_version, t.version) = $2
+					AND t.flyway_installed_rank IS NOT NULL
+					AND NOT coalesce(t.flyway_failed, false)
+				MATCH (c:__Neo4jMigration:%1$s)
+				WHERE c.flyway_installed_rank <= t.flyway_installed_rank AND c.version IS NOT NULL
+				WITH t, c ORDER BY c.flyway_installed_rank
+				WITH t, collect(c) AS archived
+				WHERE none(c IN archived WHERE coalesce(c.flyway_failed, false))
+				OPTIONAL MATCH (t)-[r:MIGRATED_TO]->(next:__Neo4jMigration)
+				FOREACH (c IN archived | REMOVE c:__Neo4jMigration SET c:%2$s)
+				CREATE (s:__Neo4jMigration:%1$s {flyway_installed_rank: t.flyway_installed_rank})
+				SET s.version = 'BASELINE',
+					s.flyway_version = coalesce(t.flyway_version, t.version),
+					s.description = '<< Compacted history >>',
+					s.type = 'BASELINE',
+					s.source = '',
+					s.flyway_installed_on = datetime(),
+					s.flyway_installed_by = $3,
+					s.flyway_execution_time = 0,
+					s.compacted_versions = reduce(v = [], c IN archived |
+						v + coalesce(c.compacted_versions, [coalesce(c.flyway_version, c.version)]))
+				CREATE (s)-[:COMPACTS]->(t)
+				FOREACH (n IN CASE WHEN next IS NULL THEN [] ELSE [next] END |
+					CREATE (s)-[nr:MIGRATED_TO]->(n) SET nr = properties(r)
+				)
+				DELETE r
+				RETURN sum(size(archived)) AS archived
+			}
+			DELETE l
+			RETURN archived
+			""";
+
+	/**
+	 * Implements {@link Neo4jFlywayHistory#compact(Configuration, String)}.
+	 * @param configuration the Flyway configuration pointing to the database and history
+	 * @param version the version up to which the history is compacted, as applied
+	 * @return the number of archived entries
+	 */
+	public static int compact(Configuration configuration, String version) {
+		Objects.requireNonNull(version, "A version is required");
+		var table = configuration.getTable();
+		var statement = COMPACT_STATEMENT.formatted(Neo4jFlywayDatabase.label(table), Neo4jFlywayHistory.ARCHIVE_LABEL);
+		try (var connection = configuration.getDataSource().getConnection();
+				var stmt = connection.prepareStatement(statement)) {
+			var installedBy = (configuration.getInstalledBy() != null) ? configuration.getInstalledBy()
+					: connection.getMetaData().getUserName();
+			stmt.setString(1, table);
+			stmt.setString(2, version);
+			stmt.setString(3, installedBy);
+			try (var rs = stmt.executeQuery()) {
+				var archived = rs.next() ? rs.getInt("archived") : 0;
+				if (archived == 0) {
+					throw new FlywayException(("Could not compact history %s up to %s: Either there's no successful "
+							+ "migration with that version or there are failed migrations before it")
+						.formatted(table, version));
+				}
+				return archived;
+			}
+		}
+		catch (SQLException ex) {
+			throw new FlywayException("Could not compact history " + table, ex);
+		}
+	}
+
+	private History() {
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Parses single lines of JSON Lines files with Jackson. Jackson is optional: This class
+ * is only initialized once a {@code .jsonl} file is read, so that everything else works
+ * without Jackson on the class or module path.
+ *
+ * @author Michael J. Simons
+ */
+final class JsonLines {
+
+	/**
+	 * Reads exactly one JSON object per line. Integral numbers become longs, all other
+	 * numbers doubles.
+	 */
+	private static final ObjectReader JSON_LINE = new ObjectMapper()
+		.enable(DeserializationFeature.USE_LONG_FOR_INTS, DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+		.enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION)
+		.readerFor(new TypeReference<Map<String, Object>>() {
+		});
+
+	/**
+	 * Parses a single line.
+	 * @param line a line containing a JSON object
+	 * @return the object as map
+	 * @throws IllegalArgumentException if the line doesn't contain exactly one JSON
+	 * object, with the message of the parser
+	 */
+	static Map<String, Object> parse(String line) {
+		try {
+			return JSON_LINE.readValue(line);
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalArgumentException(ex.getOriginalMessage(), ex);
+		}
+	}
+
+	private JsonLines() {
+	}
+
+}
@@ -16,43 +16,125 @@
 package ac.simons.neo4j.flyway;
 
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.flywaydb.core.internal.database.base.Connection;
 import org.flywaydb.core.internal.database.base.Database;
 
 /**
- * Access to Neo4j and it's schema and search path.
+ * Access to Neo4j and it's schema and search path. Facts that don't change during a run,
+ * such as the connected user and the schema objects, are resolved lazily once per
+ * connection and shared by schema, table and database. Resolving them is idempotent, so
+ * no lock is taken: In the worst case, two threads resolve the same value.
  *
  * @author Michael J. Simons
  */
 final class Neo4jFlywayConnection extends Connection<Database<?>> {
 
-	private volatile String schema;
+	private final Lazy<String> schema;
+
+	private final Lazy<String> userName;
+
+	private final Lazy<List<String>> historyLabels;
+
+	private final Map<String, Neo4jFlywaySchema> schemas = new ConcurrentHashMap<>();
 
 	Neo4jFlywayConnection(Neo4jFlywayDatabase database, java.sql.Connection connection) {
 		super(database, connection);
+		// This will always be public (at least, with Neo4j 5.x and 2025, but having it
+		// derived from the connection is nice).
+		this.schema = new Lazy<>(() -> getJdbcConnection().getSchema());
+		this.userName = new Lazy<>(() -> getJdbcConnection().getMetaData().getUserName());
+		this.historyLabels = new Lazy<>(() -> List.copyOf(getJdbcTemplate().queryForStringList("""
+				/*+ NEO4J FORCE_CYPHER */ %s
+				MATCH (n:__Neo4jMigration)
+				UNWIND labels(n) AS label
+				WITH DISTINCT label
+				WHERE NOT label STARTS WITH '__Neo4jMigration'
+				RETURN label ORDER BY label
+				""".formatted(ReadOnlyRouting.HINT))));
 	}
 
 	@Override
 	protected String getCurrentSchemaNameOrSearchPath() throws SQLException {
-		// This will always be public (at least, with Neo4j 5.x and 2025, but having it
-		// derived from the connection is nice).
-		String result = this.schema;
+		// The super constructor calls this before the fields of this class are assigned
+		return (this.schema != null) ? this.schema.get() : getJdbcConnection().getSchema();
+	}
+
+	/**
+	 * {@return the name of the user connected to Neo4j}
+	 * @throws SQLException if the name cannot be retrieved
+	 */
+	String getUserName() throws SQLException {
+		return this.userName.get();
+	}
+
+	/**
+	 * {@return the labels of all schema history "tables", cached until invalidated}
+	 * @throws SQLException if the labels cannot be retrieved
+	 */
+	List<String> getHistoryLabels() throws SQLException {
+		return this.historyLabels.get();
+	}
+
+	void invalidateHistoryLabels() {
+		this.historyLabels.reset();
+	}
+
+	@Override
+	public Neo4jFlywaySchema getSchema(String name) {
+		var result = this.schemas.get(name);
 		if (result == null) {
-			synchronized (this) {
-				result = this.schema;
-				if (result == null) {
-					this.schema = getJdbcConnection().getSchema();
-					result = this.schema;
-				}
-			}
+			result = new Neo4jFlywaySchema(getJdbcTemplate(), (Neo4jFlywayDatabase) super.database, this, name);
+			var existing = this.schemas.putIfAbsent(name, result);
+			result = (existing != null) ? existing : result;
 		}
 		return result;
 	}
 
-	@Override
-	public Neo4jFlywaySchema getSchema(String name) {
-		return new Neo4jFlywaySchema(getJdbcTemplate(), (Neo4jFlywayDatabase) super.database, name);
+	/**
+	 * A supplier that may throw an {@link SQLException}.
+	 *
+	 * @param <T> the type of the supplied value
+	 */
+	@FunctionalInterface
+	interface SqlSupplier<T> {
+
+		T get() throws SQLException;
+
+	}
+
+	/**
+	 * A lazily resolved value. Uses the racy single-check idiom, which is fine as long as
+	 * resolving the value is idempotent.
+	 *
+	 * @param <T> the type of the value
+	 */
+	private static final class Lazy<T> {
+
+		private final SqlSupplier<T> supplier;
+
+		private volatile T value;
+
+		Lazy(SqlSupplier<T> supplier) {
+			this.supplier = supplier;
+		}
+
+		T get() throws SQLException {
+			T result = this.value;
+			if (result == null) {
+				result = this.supplier.get();
+				this.value = result;
+			}
+			return result;
+		}
+
+		void reset() {
+			this.value = null;
+		}
+
 	}
 
 }
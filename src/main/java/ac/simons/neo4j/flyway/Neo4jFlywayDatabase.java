@@ -17,6 +17,7 @@ package ac.simons.neo4j.flyway;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 import org.flywaydb.core.api.CoreMigrationType;
 import org.flywaydb.core.api.configuration.Configuration;
@@ -34,33 +35,61 @@ import org.flywaydb.core.internal.util.Pair;
  */
 final class Neo4jFlywayDatabase extends Database<Neo4jFlywayConnection> {
 
+	/**
+	 * Constraints and indexes backing the schema history. All of them are idempotent, so
+	 * that they can be retried. The latest application of a repeatable migration is found
+	 * by expanding from its entry and needs no index, but repairs look up applications of
+	 * repeatable migrations by their installed rank.
+	 */
+	private static final List<String> BOOTSTRAP_STATEMENTS = List.of("""
+			/*+ NEO4J FORCE_CYPHER */
+			CREATE CONSTRAINT unique_version___Neo4jMigration IF NOT EXISTS
+			FOR (n:__Neo4jMigration)
+			REQUIRE (n.version, n.migrationTarget) IS UNIQUE
+			""", """
+			/*+ NEO4J FORCE_CYPHER */
+			CREATE CONSTRAINT __Neo4jMigrationsLock__has_unique_id IF NOT EXISTS
+			FOR (n:__Neo4jMigrationsLock)
+			REQUIRE n.id IS UNIQUE
+			""", """
+			/*+ NEO4J FORCE_CYPHER */
+			CREATE CONSTRAINT __Neo4jMigrationsLock__has_unique_name IF NOT EXISTS
+			FOR (n:__Neo4jMigrationsLock)
+			REQUIRE n.name IS UNIQUE
+			""", """
+			/*+ NEO4J FORCE_CYPHER */
+			CREATE INDEX repeated_installed_rank__Neo4jMigration IF NOT EXISTS
+			FOR ()-[r:REPEATED]-() ON (r.flyway_installed_rank)
+			""", """
+			/*+ NEO4J FORCE_CYPHER */
+			CREATE INDEX installed_rank__Neo4jMigration IF NOT EXISTS
+			FOR (n:__Neo4jMigration) ON (n.flyway_installed_rank)
+			""", """
+			/*+ NEO4J FORCE_CYPHER */
+			CREATE INDEX description__Neo4jMigration IF NOT EXISTS
+			FOR (n:__Neo4jMigration) ON (n.description)
+			""");
+
 	Neo4jFlywayDatabase(Configuration configuration, JdbcConnectionFactory jdbcConnectionFactory,
 			StatementInterceptor statementInterceptor) {
 		super(configuration, jdbcConnectionFactory, statementInterceptor);
 		try {
-			jdbcTemplate.execute("""
-					/*+ NEO4J FORCE_CYPHER */
-					CREATE CONSTRAINT unique_version___Neo4jMigration IF NOT EXISTS
-					FOR (n:__Neo4jMigration)
-					REQUIRE (n.version, n.migrationTarget) IS UNIQUE
-					""");
-			jdbcTemplate.execute("""
-					/*+ NEO4J FORCE_CYPHER */
-					CREATE CONSTRAINT __Neo4jMigrationsLock__has_unique_id IF NOT EXISTS
-					FOR (n:__Neo4jMigrationsLock)
-					REQUIRE n.id IS UNIQUE
-					""");
-			jdbcTemplate.execute("""
-					/*+ NEO4J FORCE_CYPHER */
-					CREATE CONSTRAINT __Neo4jMigrationsLock__has_unique_name IF NOT EXISTS
-					FOR (n:__Neo4jMigrationsLock)
-					REQUIRE n.name IS UNIQUE
-					""");
-			jdbcTemplate.execute("""
-					/*+ NEO4J FORCE_CYPHER */
-					CREATE INDEX repeated_at__Neo4jMigration IF NOT EXISTS
-					FOR ()-[r:REPEATED]-() ON (r.at)
-					""");
+			var registry = Neo4jFlywayOptions.registry() ? ConnectionRegistry.getInstance() : null;
+			String url = null;
+			if (registry != null) {
+				url = (configuration.getUrl() != null) ? configuration.getUrl()
+						: jdbcTemplate.getConnection().getMetaData().getURL();
+				if (registry.isBootstrapped(url, configuration.getUser())) {
+					return;
+				}
+			}
+			for (var statement : BOOTSTRAP_STATEMENTS) {
+				Retry.run(jdbcTemplate.getConnection(), "Bootstrapping the schema history",
+						() -> jdbcTemplate.execute(statement));
+			}
+			if (registry != null) {
+				registry.bootstrapped(url, configuration.getUser());
+			}
 		}
 		catch (SQLException ex) {
 			throw new RuntimeException(ex);
@@ -69,7 +98,16 @@ final class Neo4jFlywayDatabase extends Database<Neo4jFlywayConnection> {
 
 	@Override
 	protected Neo4jFlywayConnection doGetConnection(Connection connection) {
-		return new Neo4jFlywayConnection(this, connection);
+		return new Neo4jFlywayConnection(this, StatementMarkers.wrap(ReadOnlyRouting.wrap(connection)));
+	}
+
+	/**
+	 * Opens another connection through Flyway's connection factory, initialized and
+	 * wrapped the same way as the connections Flyway uses itself.
+	 * @return a new connection, to be closed by the caller
+	 */
+	Connection openConnection() {
+		return StatementMarkers.wrap(ReadOnlyRouting.wrap(this.jdbcConnectionFactory.openConnection()));
 	}
 
 	@Override
@@ -99,6 +137,9 @@ final class Neo4jFlywayDatabase extends Database<Neo4jFlywayConnection> {
 	@Override
 	@SuppressWarnings({ "rawtypes", "RedundantSuppression" })
 	public String getRawCreateScript(Table table, boolean baseline) {
+		// Flyway creates the table by running this script, and there's no doCreate on
+		// tables: The label is about to come into existence, so the cached ones are stale
+		((Neo4jFlywaySchema) table.getSchema()).invalidateTables();
 		var baselineStatement = getBaselineStatement(table);
 		if (baseline) {
 			return baselineStatement.replace("$rank", "1");
@@ -122,7 +163,7 @@ final class Neo4jFlywayDatabase extends Database<Neo4jFlywayConnection> {
 					p.flyway_installed_on = datetime(),
 					p.flyway_installed_by = "%s",
 					p.flyway_execution_time = 0
-				""".formatted(SchemaNames.sanitize(table.getName()).orElseThrow(),
+				""".formatted(label(table.getName()),
 				configuration.getBaselineVersion().toString().replace("\"", "\\\""),
 				AbbreviationUtils.abbreviateDescription(configuration.getBaselineDescription()).replace("\"", "\\\""),
 				CoreMigrationType.BASELINE,
@@ -135,12 +176,16 @@ final class Neo4jFlywayDatabase extends Database<Neo4jFlywayConnection> {
 	public String getUpdateStatement(Table table) {
 		return """
 				/*+ NEO4J FORCE_CYPHER */
-				MATCH (n:__Neo4jMigration:%s {flyway_installed_rank: $4})
+				OPTIONAL MATCH (n:__Neo4jMigration:%1$s {flyway_installed_rank: $4})
 				SET n.description = $1,
 					n.type = CASE $2 WHEN 'SQL' THEN 'CYPHER' WHEN 'JDBC' THEN 'JAVA' ELSE $2 END,
 					n.checksum = toString($3)
+				WITH *
+				OPTIONAL MATCH (:__Neo4jMigration:%1$s)-[r:REPEATED {flyway_installed_rank: $4}]->()
+				SET r.type = CASE $2 WHEN 'SQL' THEN 'CYPHER' WHEN 'JDBC' THEN 'JAVA' ELSE $2 END,
+					r.checksum = toString($3)
 				FINISH
-				""".formatted(SchemaNames.sanitize(table.getName()).orElseThrow());
+				""".formatted(label(table.getName()));
 	}
 
 	@Override
@@ -150,70 +195,153 @@ final class Neo4jFlywayDatabase extends Database<Neo4jFlywayConnection> {
 		var statement = """
 				/*+ NEO4J FORCE_CYPHER */
 				MATCH (c:__Neo4jMigration:%s)
-				WHERE c.flyway_failed AND %s
+				WHERE %s
+				OPTIONAL MATCH (c)-[r:REPEATED]->(c)
+				WHERE r.flyway_failed
+				DELETE r
+				WITH DISTINCT c
+				WHERE c.flyway_failed
 				DETACH DELETE c
-				""".formatted(SchemaNames.sanitize(table.getName()).orElseThrow(), predicate);
+				""".formatted(label(table.getName()), predicate);
 		return Pair.of(statement, filter);
 	}
 
+	/**
+	 * Returns the history in two parts: The chain of migrations, including the first
+	 * application of repeatable migrations, and the latest application of each repeatable
+	 * migration, recorded as {@code REPEATED} relationship. The latter is a top-1 lookup per
+	 * repeatable migration instead of reading all its applications.
+	 * @param table the table holding the history
+	 * @return the statement to select the history
+	 */
 	@Override
 	@SuppressWarnings({ "rawtypes", "RedundantSuppression" })
 	public String getSelectStatement(Table table) {
 		return """
-				/*+ NEO4J FORCE_CYPHER */
-				MATCH (c:__Neo4jMigration:%s)
-				OPTIONAL MATCH (p)-[r:MIGRATED_TO]->(c)
-				ORDER BY r.at
-				WITH collect([p,r,c]) AS rows
-				UNWIND range(1, size(rows)) AS rank
-				WITH rank, rows[rank-1] AS row
-				WITH coalesce(row[2].flyway_installed_rank, rank) AS flyway_installed_rank, row[0] AS p, row[1] AS r, row[2] AS c
-				WHERE flyway_installed_rank > $1
-				AND (c.flyway_installed_rank IS NOT NULL OR c.version <> 'BASELINE')
-				RETURN flyway_installed_rank AS installed_rank,
-					coalesce(c.flyway_version,
-					c.version
-					) AS version,
-					c.description AS description,
-					CASE c.type WHEN 'CYPHER' THEN 'SQL' WHEN 'JAVA' THEN 'JDBC' ELSE coalesce(c.type, c.version) END AS type,
-					coalesce(c.source, "") AS script,
-					c.checksum AS checksum,
-					coalesce(c.flyway_installed_on, r.at) AS installed_on,
-					coalesce(c.flyway_installed_by, r.by + "/" + r.connectedAs) AS installed_by,
-					coalesce(c.flyway_execution_time, r.in.milliseconds) AS execution_time,
-					not(coalesce(c.flyway_failed, false)) AS success
+				/*+ NEO4J FORCE_CYPHER */ %2$s
+				CALL () {
+					MATCH (c:__Neo4jMigration:%1$s)
+					OPTIONAL MATCH (p)-[r:MIGRATED_TO]->(c)
+					ORDER BY r.at
+					WITH collect([p,r,c]) AS rows
+					UNWIND range(1, size(rows)) AS rank
+					WITH rank, rows[rank-1] AS row
+					WITH coalesce(row[2].flyway_installed_rank, rank) AS flyway_installed_rank, row[1] AS r, row[2] AS c
+					WHERE c.flyway_installed_rank IS NOT NULL OR c.version <> 'BASELINE'
+					RETURN flyway_installed_rank,
+						coalesce(c.flyway_version,
+						c.version
+						) AS version,
+						c.description AS description,
+						CASE c.type WHEN 'CYPHER' THEN 'SQL' WHEN 'JAVA' THEN 'JDBC' ELSE coalesce(c.type, c.version) END AS type,
+						coalesce(c.source, "") AS script,
+						c.checksum AS checksum,
+						coalesce(c.flyway_installed_on, r.at) AS installed_on,
+						coalesce(c.flyway_installed_by, r.by + "/" + r.connectedAs) AS installed_by,
+						coalesce(c.flyway_execution_time, r.in.milliseconds) AS execution_time,
+						not(coalesce(c.flyway_failed, false)) AS success
+					UNION ALL
+					MATCH (c:__Neo4jMigration:%1$s)
+					WHERE c.version IS NULL
+					CALL (c) {
+						MATCH (c)-[r:REPEATED]->(c)
+						WHERE r.flyway_installed_rank IS NOT NULL
+						RETURN r ORDER BY r.at DESC LIMIT 1
+					}
+					RETURN r.flyway_installed_rank AS flyway_installed_rank,
+						null AS version,
+						c.description AS description,
+						CASE r.type WHEN 'CYPHER' THEN 'SQL' WHEN 'JAVA' THEN 'JDBC' ELSE coalesce(r.type, c.type) END AS type,
+						coalesce(r.source, c.source, "") AS script,
+						r.checksum AS checksum,
+						r.at AS installed_on,
+						r.by + "/" + r.connectedAs AS installed_by,
+						r.in.milliseconds AS execution_time,
+						not(coalesce(r.flyway_failed, false)) AS success
+				}
+				WITH * WHERE flyway_installed_rank > $1
+				RETURN flyway_installed_rank AS installed_rank, version, description, type, script, checksum,
+					installed_on, installed_by, execution_time, success
 				ORDER BY flyway_installed_rank
 				"""
-			.formatted(SchemaNames.sanitize(table.getName()).orElseThrow());
+			.formatted(label(table.getName()), ReadOnlyRouting.HINT);
 	}
 
+	/**
+	 * Repeatable migrations that have been applied before are recorded as {@code REPEATED}
+	 * relationship on their first application, all other migrations are appended to the
+	 * chain of migrations. Both lookups are backed by an index, and the connected user is
+	 * resolved once per connection, so that the cost of recording a migration doesn't
+	 * depend on the size of the history.
+	 * @param table the table holding the history
+	 * @return the statement to insert into the history
+	 */
 	@Override
 	@SuppressWarnings({ "rawtypes", "RedundantSuppression" })
 	public String getInsertStatement(Table table) {
+		String userName;
+		try {
+			userName = getMainConnection().getUserName();
+		}
+		catch (SQLException ex) {
+			throw new RuntimeException(ex);
+		}
 		return """
 				/*+ NEO4J FORCE_CYPHER */
-				CALL dbms.showCurrentUser() YIELD username
-				WITH username, CASE $1 - 1 WHEN 0 THEN -1 ELSE $1 - 1 END as previous_rank
-				MATCH (p:__Neo4jMigration:%1$s {flyway_installed_rank: previous_rank})
-				CREATE (p) -[r:MIGRATED_TO]-> (c:__Neo4jMigration)
-				SET c:%1$s,
-					c.flyway_installed_rank = $1,
-					c.version = $2,
-					c.description = $3,
-					c.type = CASE $4 WHEN 'SQL' THEN 'CYPHER' WHEN 'JDBC' THEN 'JAVA' ELSE $4 END,
-					c.source = $5,
-					c.checksum = toString($6),
-					r.by = split($7, '/')[0],
-					r.connectedAs = coalesce(split($7, '/')[1], username),
-					r.at = datetime(),
-					r.in =duration({milliseconds: $8}),
-					c.flyway_failed = CASE $9 WHEN true THEN null ELSE true END
-				""".formatted(SchemaNames.sanitize(table.getName()).orElseThrow());
+				WITH split($7, '/') AS installedBy
+				OPTIONAL MATCH (m:__Neo4jMigration:%1$s {description: $3})
+				WHERE $2 IS NULL AND m.version IS NULL AND NOT coalesce(m.flyway_failed, false)
+				WITH installedBy[0] AS installer, coalesce(installedBy[1], '%2$s') AS connectedAs, head(collect(m)) AS m
+				CALL (installer, connectedAs, m) {
+					WITH * WHERE m IS NOT NULL
+					CREATE (m) -[r:REPEATED]-> (m)
+					SET r.flyway_installed_rank = $1,
+						r.type = CASE $4 WHEN 'SQL' THEN 'CYPHER' WHEN 'JDBC' THEN 'JAVA' ELSE $4 END,
+						r.source = $5,
+						r.checksum = toString($6),
+						r.by = installer,
+						r.connectedAs = connectedAs,
+						r.at = datetime(),
+						r.in = duration({milliseconds: $8}),
+						r.flyway_failed = CASE $9 WHEN true THEN null ELSE true END
+				}
+				CALL (installer, connectedAs, m) {
+					WITH * WHERE m IS NULL
+					MATCH (p:__Neo4jMigration:%1$s) WHERE p.flyway_installed_rank < $1
+					WITH installer, connectedAs, p ORDER BY p.flyway_installed_rank DESC LIMIT 1
+					CREATE (p) -[r:MIGRATED_TO]-> (c:__Neo4jMigration)
+					SET c:%1$s,
+						c.flyway_installed_rank = $1,
+						c.version = $2,
+						c.description = $3,
+						c.type = CASE $4 WHEN 'SQL' THEN 'CYPHER' WHEN 'JDBC' THEN 'JAVA' ELSE $4 END,
+						c.source = $5,
+						c.checksum = toString($6),
+						r.by = installer,
+						r.connectedAs = connectedAs,
+						r.at = datetime(),
+						r.in = duration({milliseconds: $8}),
+						c.flyway_failed = CASE $9 WHEN true THEN null ELSE true END
+				}
+				FINISH
+				""".formatted(label(table.getName()),
+				userName.replace("\\", "\\\\").replace("'", "\\'"));
+	}
+
+	/**
+	 * Sanitizes the name of a table for use as a label. The rules don't depend on the
+	 * server version, so that existing histories keep their label when the server is
+	 * upgraded.
+	 * @param tableName the name of the table
+	 * @return a label
+	 */
+	static String label(String tableName) {
+		return SchemaNames.sanitize(tableName).orElseThrow();
 	}
 
 	@Override
 	protected String doGetCurrentUser() throws SQLException {
-		return System.getProperty("user.name") + "/" + super.doGetCurrentUser();
+		return System.getProperty("user.name") + "/" + getMainConnection().getUserName();
 	}
 
 }
@@ -20,11 +20,13 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
+import ac.simons.neo4j.flyway.api.Neo4jFlywayDriver;
 import org.flywaydb.core.api.ResourceProvider;
 import org.flywaydb.core.api.configuration.Configuration;
 import org.flywaydb.core.internal.database.base.BaseDatabaseType;
 import org.flywaydb.core.internal.database.base.CommunityDatabaseType;
 import org.flywaydb.core.internal.database.base.Database;
+import org.flywaydb.core.internal.jdbc.ExecutionTemplate;
 import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
 import org.flywaydb.core.internal.jdbc.StatementInterceptor;
 import org.flywaydb.core.internal.parser.Parser;
@@ -37,13 +39,13 @@ import org.flywaydb.core.internal.parser.ParsingContext;
  */
 public final class Neo4jFlywayDatabaseType extends BaseDatabaseType implements CommunityDatabaseType {
 
-	private static final String URL_REGEX = "(?i)^jdbc:neo4j(?:\\+(s(sc)?)?)?://";
+	static final Pattern URL_PATTERN = Pattern.compile("(?i)^jdbc:neo4j(?:\\+(s(sc)?)?)?://");
 
 	/**
-	 * Needed for the plugin loader.
+	 * Needed for the plugin loader. Flyway instantiates all plugins on startup, regardless
+	 * of the database in use, so this must stay cheap.
 	 */
 	public Neo4jFlywayDatabaseType() {
-		Logger.getLogger("org.neo4j.jdbc").setLevel(Level.SEVERE);
 	}
 
 	@Override
@@ -58,12 +60,13 @@ public final class Neo4jFlywayDatabaseType extends BaseDatabaseType implements C
 
 	@Override
 	public boolean handlesJDBCUrl(String url) {
-		return Pattern.compile(URL_REGEX).asPredicate().test(url);
+		return url != null && URL_PATTERN.matcher(url).find();
 	}
 
 	@Override
 	public String getDriverClass(String url, ClassLoader classLoader) {
-		return "org.neo4j.jdbc.Neo4jDriver";
+		DriverLogging.silence();
+		return Neo4jFlywayOptions.registry() ? Neo4jFlywayDriver.class.getName() : "org.neo4j.jdbc.Neo4jDriver";
 	}
 
 	@Override
@@ -75,13 +78,41 @@ public final class Neo4jFlywayDatabaseType extends BaseDatabaseType implements C
 	@Override
 	public Database<?> createDatabase(Configuration configuration, JdbcConnectionFactory jdbcConnectionFactory,
 			StatementInterceptor statementInterceptor) {
+		DriverLogging.silence();
 		return new Neo4jFlywayDatabase(configuration, jdbcConnectionFactory, statementInterceptor);
 	}
 
 	@Override
 	public Parser createParser(Configuration configuration, ResourceProvider resourceProvider,
 			ParsingContext parsingContext) {
-		return new Neo4jFlywayParser(configuration, parsingContext, 10);
+		return new Neo4jFlywayParser(configuration, resourceProvider, parsingContext, 10);
+	}
+
+	@Override
+	public ExecutionTemplate createTransactionalExecutionTemplate(Connection connection, boolean rollbackOnException) {
+		return new RetryingTransactionalExecutionTemplate(connection, rollbackOnException);
+	}
+
+	/**
+	 * Reduces the log level of the driver once and only when Neo4j is actually used. Holds
+	 * on to the logger, as {@link Logger} keeps only weak references to its instances and
+	 * the level would get lost otherwise.
+	 */
+	private static final class DriverLogging {
+
+		private static final Logger LOGGER = Logger.getLogger("org.neo4j.jdbc");
+
+		static {
+			LOGGER.setLevel(Level.SEVERE);
+		}
+
+		static void silence() {
+			// Initialization of this class does the work
+		}
+
+		private DriverLogging() {
+		}
+
 	}
 
 }
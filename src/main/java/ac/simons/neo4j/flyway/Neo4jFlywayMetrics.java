@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import ac.simons.neo4j.flyway.api.Neo4jFlywayMetricsMXBean;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+
+/**
+ * Process-wide counters of this plugin. They are registered with the platform MBean
+ * server on first use, so that nothing is paid for them if they are never needed.
+ *
+ * @author Michael J. Simons
+ */
+final class Neo4jFlywayMetrics implements Neo4jFlywayMetricsMXBean {
+
+	static final String OBJECT_NAME = "ac.simons.neo4j.flyway:type=Metrics";
+
+	private static final Log LOG = LogFactory.getLog(Neo4jFlywayMetrics.class);
+
+	private final LongAdder retries = new LongAdder();
+
+	private final LongAdder recoveredOperations = new LongAdder();
+
+	private final LongAdder exhaustedOperations = new LongAdder();
+
+	private final LongAdder awaitedIndexes = new LongAdder();
+
+	private final LongAdder terminatedTransactions = new LongAdder();
+
+	private final LongAdder reusedConnections = new LongAdder();
+
+	private volatile double throttledRowsPerSecond;
+
+	private volatile int throttledBatchSize;
+
+	static Neo4jFlywayMetrics get() {
+		return Holder.INSTANCE;
+	}
+
+	private Neo4jFlywayMetrics() {
+	}
+
+	@Override
+	public long getRetries() {
+		return this.retries.sum();
+	}
+
+	@Override
+	public long getRecoveredOperations() {
+		return this.recoveredOperations.sum();
+	}
+
+	@Override
+	public long getExhaustedOperations() {
+		return this.exhaustedOperations.sum();
+	}
+
+	@Override
+	public long getAwaitedIndexes() {
+		return this.awaitedIndexes.sum();
+	}
+
+	@Override
+	public long getTerminatedTransactions() {
+		return this.terminatedTransactions.sum();
+	}
+
+	@Override
+	public long getReusedConnections() {
+		return this.reusedConnections.sum();
+	}
+
+	@Override
+	public double getThrottledRowsPerSecond() {
+		return this.throttledRowsPerSecond;
+	}
+
+	@Override
+	public int getThrottledBatchSize() {
+		return this.throttledBatchSize;
+	}
+
+	void retried() {
+		this.retries.increment();
+	}
+
+	void recovered() {
+		this.recoveredOperations.increment();
+	}
+
+	void exhausted() {
+		this.exhaustedOperations.increment();
+	}
+
+	void awaited(int indexes) {
+		this.awaitedIndexes.add(indexes);
+	}
+
+	void terminated(int transactions) {
+		this.terminatedTransactions.add(transactions);
+	}
+
+	void reused() {
+		this.reusedConnections.increment();
+	}
+
+	void throttled(double rowsPerSecond, int batchSize) {
+		this.throttledRowsPerSecond = rowsPerSecond;
+		this.throttledBatchSize = batchSize;
+	}
+
+	private static Neo4jFlywayMetrics register(Neo4jFlywayMetrics metrics) {
+		try {
+			var server = ManagementFactory.getPlatformMBeanServer();
+			var name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new StandardMBean(metrics, Neo4jFlywayMetricsMXBean.class, true), name);
+			}
+		}
+		catch (JMException ex) {
+			LOG.debug("Could not register metrics: " + ex.getMessage());
+		}
+		return metrics;
+	}
+
+	private static final class Holder {
+
+		private static final Neo4jFlywayMetrics INSTANCE = register(new Neo4jFlywayMetrics());
+
+	}
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Options of this plugin. Flyway has no notion of configuration for database types, so
+ * they are read from system properties prefixed with {@literal neo4j.flyway.}.
+ *
+ * @author Michael J. Simons
+ */
+final class Neo4jFlywayOptions {
+
+	private static final String PREFIX = "neo4j.flyway.";
+
+	private static final Pattern DURATION = Pattern.compile("(?i)(\\d+)\\s*(ms|s|m|h)?");
+
+	/**
+	 * {@return where to wait for indexes created by schema statements to come online}
+	 */
+	static IndexBarrier indexBarrier() {
+		return get("index-barrier").map(v -> toEnum(IndexBarrier.class, v)).orElse(IndexBarrier.BEFORE_NEXT_STATEMENT);
+	}
+
+	/**
+	 * {@return how long to wait at most for indexes to come online}
+	 */
+	static Duration indexPopulationTimeout() {
+		return get("index-population-timeout").map(Neo4jFlywayOptions::parseDuration).orElse(Duration.ofMinutes(30));
+	}
+
+	/**
+	 * {@return whether consecutive statements of the same shape are run as one
+	 * {@code UNWIND}}
+	 */
+	static boolean coalesceStatements() {
+		return get("coalesce-statements").map(Boolean::parseBoolean).orElse(false);
+	}
+
+	/**
+	 * {@return how many statements are coalesced at most}
+	 */
+	static int coalesceBatchSize() {
+		return get("coalesce-batch-size").map(Integer::parseInt).orElse(1000);
+	}
+
+	/**
+	 * {@return how many rows of a CSV or JSON Lines file are passed at once to a bulk load
+	 * statement}
+	 */
+	static int bulkLoadBatchSize() {
+		return get("bulk-load.batch-size").map(Integer::parseInt).orElse(1000);
+	}
+
+	/**
+	 * {@return whether batches of bulk loads, coalesced statements and
+	 * {@code CALL {} IN TRANSACTIONS} are throttled}
+	 */
+	static boolean throttle() {
+		return get("throttle.enabled").map(Boolean::parseBoolean).orElse(false);
+	}
+
+	/**
+	 * {@return the latency of a batch the throttle aims for}
+	 */
+	static Duration throttleTargetLatency() {
+		return get("throttle.target-latency").map(Neo4jFlywayOptions::parseDuration).orElse(Duration.ofMillis(250));
+	}
+
+	/**
+	 * {@return how many rows per second throttled statements write at most, {@literal 0}
+	 * for no limit}
+	 */
+	static double throttleMaxRate() {
+		return get("throttle.max-rate").map(Double::parseDouble).orElse(0.0);
+	}
+
+	/**
+	 * {@return how long a single statement may run, unless overridden with the
+	 * {@code timeout} directive}
+	 */
+	static Optional<Duration> statementTimeout() {
+		return get("statement-timeout").map(Neo4jFlywayOptions::parseDuration);
+	}
+
+	/**
+	 * {@return how long all statements of a migration may run together, unless
+	 * overridden with the {@code migration-timeout} directive}
+	 */
+	static Optional<Duration> migrationTimeout() {
+		return get("migration-timeout").map(Neo4jFlywayOptions::parseDuration);
+	}
+
+	/**
+	 * {@return how many statements of a parallel block run concurrently at most, unless
+	 * given with the {@code parallel} directive}
+	 */
+	static int parallelism() {
+		return get("parallelism").map(Integer::parseInt).orElse(4);
+	}
+
+	/**
+	 * {@return how many migrations are explained concurrently during pre-flight}
+	 */
+	static int preflightParallelism() {
+		return get("preflight.parallelism").map(Integer::parseInt)
+			.orElseGet(() -> Math.min(4, Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * {@return whether to log planner notifications during pre-flight}
+	 */
+	static boolean preflightReportWarnings() {
+		return get("preflight.report-warnings").map(Boolean::parseBoolean).orElse(true);
+	}
+
+	/**
+	 * {@return how often the plugin's own statements are attempted at most when they fail
+	 * with a transient error}
+	 */
+	static int retryMaxAttempts() {
+		return get("retry.max-attempts").map(Integer::parseInt).orElse(5);
+	}
+
+	/**
+	 * {@return the backoff before the first retry}
+	 */
+	static Duration retryInitialBackoff() {
+		return get("retry.initial-backoff").map(Neo4jFlywayOptions::parseDuration).orElse(Duration.ofMillis(200));
+	}
+
+	/**
+	 * {@return the upper bound of the backoff between retries}
+	 */
+	static Duration retryMaxBackoff() {
+		return get("retry.max-backoff").map(Neo4jFlywayOptions::parseDuration).orElse(Duration.ofSeconds(5));
+	}
+
+	/**
+	 * {@return whether connections and the bootstrap state of databases are kept in the
+	 * process-wide {@link ConnectionRegistry}}
+	 */
+	static boolean registry() {
+		return get("registry.enabled").map(Boolean::parseBoolean).orElse(false);
+	}
+
+	/**
+	 * {@return how many idle connections the registry keeps at most per URL and
+	 * connection properties}
+	 */
+	static int registryMaxIdle() {
+		return get("registry.max-idle").map(Integer::parseInt).orElse(2);
+	}
+
+	static Optional<String> get(String name) {
+		return Optional.ofNullable(System.getProperty(PREFIX + name)).map(String::trim).filter(v -> !v.isEmpty());
+	}
+
+	static <E extends Enum<E>> E toEnum(Class<E> type, String value) {
+		return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+	}
+
+	/**
+	 * Parses durations either in ISO-8601 format or in a simplified format such as
+	 * {@literal 500ms}, {@literal 30s}, {@literal 5m} or {@literal 1h}. A number without
+	 * unit is treated as seconds.
+	 * @param value the value to parse
+	 * @return a duration
+	 */
+	static Duration parseDuration(String value) {
+		var trimmed = value.trim();
+		var matcher = DURATION.matcher(trimmed);
+		if (!matcher.matches()) {
+			return Duration.parse(trimmed);
+		}
+		var amount = Long.parseLong(matcher.group(1));
+		var unit = Optional.ofNullable(matcher.group(2)).map(u -> u.toLowerCase(Locale.ROOT)).orElse("s");
+		return switch (unit) {
+			case "ms" -> Duration.ofMillis(amount);
+			case "m" -> Duration.ofMinutes(amount);
+			case "h" -> Duration.ofHours(amount);
+			default -> Duration.ofSeconds(amount);
+		};
+	}
+
+	private Neo4jFlywayOptions() {
+	}
+
+	/**
+	 * Where to wait for indexes to come online after schema statements.
+	 */
+	enum IndexBarrier {
+
+		/**
+		 * Wait before the first statement following one or more schema statements.
+		 */
+		BEFORE_NEXT_STATEMENT,
+		/**
+		 * Wait once at the end of the migration.
+		 */
+		END_OF_MIGRATION,
+		/**
+		 * Don't wait at all.
+		 */
+		NONE
+
+	}
+
+}
@@ -15,6 +15,16 @@
  */
 package ac.simons.neo4j.flyway;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.ResourceProvider;
 import org.flywaydb.core.api.configuration.Configuration;
 import org.flywaydb.core.api.resource.Resource;
 import org.flywaydb.core.internal.parser.Parser;
@@ -29,27 +39,227 @@ import org.flywaydb.core.internal.sqlscript.SqlStatement;
  * The parent parser ofc does only SQL, but it seems to be "good enough" to handle most
  * Cypher without burning down to the ground immediately. Neo4j can't deal with "comment
  * only" statements, so we filter those.
+ * <p>
+ * Statements creating indexes or constraints return while the index is still populating.
+ * The parser recognizes them and inserts a single {@link AwaitIndexesStatement} either
+ * before the next statement or at the end of the migration, see
+ * {@link Neo4jFlywayOptions#indexBarrier()}.
+ * <p>
+ * If enabled, consecutive statements of the same {@link StatementShape shape} are
+ * coalesced into a {@link CoalescedStatement}, see
+ * {@link Neo4jFlywayOptions#coalesceStatements()}. Statements using {@code $rows} are
+ * paired with a CSV or JSON Lines file if there is one, see {@link BulkLoadStatement}.
+ * Statements and migrations with a timeout are wrapped in a {@link TimeoutStatement}. All
+ * batched statements of a migration share a {@link Throttle}, if enabled. Statements
+ * between the {@code parallel} and {@code end-parallel} directives are grouped into a
+ * {@link ParallelStatement}.
  *
  * @author Michael J. Simons
  */
 final class Neo4jFlywayParser extends Parser {
 
-	Neo4jFlywayParser(Configuration configuration, ParsingContext parsingContext, int peekDepth) {
+	private static final Pattern LEADING_COMMENTS = Pattern.compile("^(?:\\s+|//[^\\n]*(?:\\n|$)|/\\*.*?\\*/)+",
+			Pattern.DOTALL);
+
+	private static final Pattern CREATE_INDEX_OR_CONSTRAINT = Pattern.compile(
+			"(?i)^CREATE\\s+(?:(?:RANGE|TEXT|POINT|LOOKUP|FULLTEXT|VECTOR|BTREE)\\s+)?(?:INDEX|CONSTRAINT)\\b");
+
+	private final Neo4jFlywayOptions.IndexBarrier indexBarrier = Neo4jFlywayOptions.indexBarrier();
+
+	private final int coalesceBatchSize = Neo4jFlywayOptions.coalesceStatements()
+			? Neo4jFlywayOptions.coalesceBatchSize() : 1;
+
+	private final ResourceProvider resourceProvider;
+
+	private final Deque<SqlStatement> buffer = new ArrayDeque<>();
+
+	private PeekingReader currentReader;
+
+	private SqlStatement lookahead;
+
+	private AwaitIndexesStatement pendingBarrier;
+
+	private boolean firstStatement;
+
+	private TimeoutStatement.MigrationTimeout migrationTimeout;
+
+	private Throttle throttle;
+
+	Neo4jFlywayParser(Configuration configuration, ResourceProvider resourceProvider, ParsingContext parsingContext,
+			int peekDepth) {
 		super(configuration, parsingContext, peekDepth);
+		this.resourceProvider = resourceProvider;
 	}
 
 	@Override
 	protected SqlStatement getNextStatement(Resource resource, PeekingReader reader, Recorder recorder,
 			PositionTracker tracker, ParserContext context) {
-		var nextStatement = super.getNextStatement(resource, reader, recorder, tracker, context);
+
+		// The same parser might be used to parse a script more than once
+		if (reader != this.currentReader) {
+			this.currentReader = reader;
+			this.buffer.clear();
+			this.lookahead = null;
+			this.pendingBarrier = null;
+			this.firstStatement = true;
+			this.migrationTimeout = null;
+			this.throttle = Throttle.fromOptions();
+		}
+
+		if (!this.buffer.isEmpty()) {
+			return this.buffer.poll();
+		}
+
+		var nextStatement = nextCypherStatement(resource, reader, recorder, tracker, context);
 		if (nextStatement == null) {
-			return null;
+			return (this.indexBarrier != Neo4jFlywayOptions.IndexBarrier.NONE) ? awaitPendingIndexes() : null;
+		}
+		var directives = Directives.of(nextStatement.getSql());
+		if (this.firstStatement) {
+			this.firstStatement = false;
+			this.migrationTimeout = directives.getDuration("migration-timeout")
+				.or(Neo4jFlywayOptions::migrationTimeout)
+				.map(TimeoutStatement.MigrationTimeout::new)
+				.orElse(null);
+		}
+		if (directives.get("parallel").isPresent()) {
+			nextStatement = parallel(nextStatement, directives, resource, reader, recorder, tracker, context);
+		}
+		else if (isCreateIndexOrConstraint(nextStatement.getSql())) {
+			return decorate(nextStatement, directives, resource, reader, recorder, tracker, context);
 		}
-		var sql = nextStatement.getSql().trim();
-		if (sql.lines().allMatch(l -> l.startsWith("//"))) {
-			return null;
+		else {
+			nextStatement = decorate(nextStatement, directives, resource, reader, recorder, tracker, context);
+		}
+		if (this.pendingBarrier != null
+				&& this.indexBarrier == Neo4jFlywayOptions.IndexBarrier.BEFORE_NEXT_STATEMENT) {
+			this.buffer.add(nextStatement);
+			return awaitPendingIndexes();
 		}
 		return nextStatement;
 	}
 
+	private SqlStatement decorate(SqlStatement statement, Directives directives, Resource resource,
+			PeekingReader reader, Recorder recorder, PositionTracker tracker, ParserContext context) {
+		var timeout = directives.getDuration("timeout").or(Neo4jFlywayOptions::statementTimeout).orElse(null);
+		var result = statement;
+		if (isCreateIndexOrConstraint(statement.getSql())) {
+			if (this.pendingBarrier == null) {
+				this.pendingBarrier = new AwaitIndexesStatement(statement, Neo4jFlywayOptions.indexPopulationTimeout());
+			}
+			return withTimeout(this.pendingBarrier.track(statement), timeout);
+		}
+		var bulkLoad = BulkLoadStatement.of(this.configuration, this.resourceProvider, resource, statement,
+				this.throttle);
+		if (bulkLoad.isPresent()) {
+			result = bulkLoad.get();
+		}
+		else if (this.throttle != null && Throttle.usesTransactions(statement.getSql())) {
+			result = new ThrottledStatement(statement, this.throttle);
+		}
+		else if (this.coalesceBatchSize > 1) {
+			result = coalesce(statement, resource, reader, recorder, tracker, context);
+		}
+		return withTimeout(result, timeout);
+	}
+
+	private SqlStatement parallel(SqlStatement first, Directives directives, Resource resource, PeekingReader reader,
+			Recorder recorder, PositionTracker tracker, ParserContext context) {
+		var parallelism = "true".equals(directives.get("parallel").orElseThrow())
+				? Neo4jFlywayOptions.parallelism() : directives.getInt("parallel").orElseThrow();
+		var statements = new ArrayList<SqlStatement>();
+		var statement = first;
+		var statementDirectives = directives;
+		while (true) {
+			if (isCreateIndexOrConstraint(statement.getSql())) {
+				throw new FlywayException("Schema statements can't be run in parallel (%s, line %d)"
+					.formatted(resource.getFilename(), statement.getLineNumber()));
+			}
+			statements.add(decorate(statement, statementDirectives, resource, reader, recorder, tracker, context));
+			statement = nextCypherStatement(resource, reader, recorder, tracker, context);
+			if (statement == null) {
+				break;
+			}
+			statementDirectives = Directives.of(statement.getSql());
+			if (statementDirectives.get("end-parallel").isPresent()) {
+				this.lookahead = statement;
+				break;
+			}
+		}
+		return new ParallelStatement(database(), statements, Math.max(1, parallelism));
+	}
+
+	private SqlStatement withTimeout(SqlStatement statement, Duration timeout) {
+		if (timeout == null && this.migrationTimeout == null) {
+			return statement;
+		}
+		return new TimeoutStatement(database(), statement, timeout, this.migrationTimeout);
+	}
+
+	/**
+	 * {@return the database the migrations are parsed for, {@literal null} when parsing
+	 * outside of a migration}
+	 */
+	private Neo4jFlywayDatabase database() {
+		return (this.parsingContext.getDatabase() instanceof Neo4jFlywayDatabase database) ? database : null;
+	}
+
+	private SqlStatement coalesce(SqlStatement first, Resource resource, PeekingReader reader, Recorder recorder,
+			PositionTracker tracker, ParserContext context) {
+		var shape = StatementShape.of(first.getSql()).orElse(null);
+		if (shape == null) {
+			return first;
+		}
+		var rows = new ArrayList<Map<String, Object>>();
+		rows.add(shape.toRow());
+		while (rows.size() < this.coalesceBatchSize) {
+			var candidate = nextCypherStatement(resource, reader, recorder, tracker, context);
+			if (candidate == null) {
+				break;
+			}
+			var candidateShape = Optional.of(candidate.getSql())
+				.filter(sql -> Directives.of(sql).isEmpty())
+				.flatMap(StatementShape::of)
+				.filter(shape::isCompatibleWith);
+			if (candidateShape.isEmpty()) {
+				this.lookahead = candidate;
+				break;
+			}
+			rows.add(candidateShape.get().toRow());
+		}
+		return (rows.size() == 1) ? first : new CoalescedStatement(first, shape, rows, this.throttle);
+	}
+
+	private SqlStatement nextCypherStatement(Resource resource, PeekingReader reader, Recorder recorder,
+			PositionTracker tracker, ParserContext context) {
+		if (this.lookahead != null) {
+			var result = this.lookahead;
+			this.lookahead = null;
+			return result;
+		}
+		var nextStatement = super.getNextStatement(resource, reader, recorder, tracker, context);
+		while (nextStatement != null && isCommentOnly(nextStatement.getSql())) {
+			nextStatement = super.getNextStatement(resource, reader, recorder, tracker, context);
+		}
+		return nextStatement;
+	}
+
+	private SqlStatement awaitPendingIndexes() {
+		var result = this.pendingBarrier;
+		this.pendingBarrier = null;
+		return result;
+	}
+
+	static boolean isCommentOnly(String sql) {
+		return sql.trim().lines().allMatch(l -> l.startsWith("//"));
+	}
+
+	static String stripLeadingComments(String sql) {
+		return LEADING_COMMENTS.matcher(sql).replaceFirst("");
+	}
+
+	static boolean isCreateIndexOrConstraint(String sql) {
+		return CREATE_INDEX_OR_CONSTRAINT.matcher(stripLeadingComments(sql)).find();
+	}
+
 }
@@ -16,7 +16,6 @@
 package ac.simons.neo4j.flyway;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
 
 import org.flywaydb.core.internal.database.base.Schema;
 import org.flywaydb.core.internal.database.base.Table;
@@ -29,8 +28,12 @@ import org.flywaydb.core.internal.jdbc.JdbcTemplate;
  */
 final class Neo4jFlywaySchema extends Schema<Neo4jFlywayDatabase, Neo4jFlywayTable> {
 
-	Neo4jFlywaySchema(JdbcTemplate jdbcTemplate, Neo4jFlywayDatabase database, String name) {
+	private final Neo4jFlywayConnection connection;
+
+	Neo4jFlywaySchema(JdbcTemplate jdbcTemplate, Neo4jFlywayDatabase database, Neo4jFlywayConnection connection,
+			String name) {
 		super(jdbcTemplate, database, name);
+		this.connection = connection;
 	}
 
 	@Override
@@ -40,7 +43,8 @@ final class Neo4jFlywaySchema extends Schema<Neo4jFlywayDatabase, Neo4jFlywayTab
 
 	@Override
 	protected boolean doEmpty() throws SQLException {
-		return this.jdbcTemplate.queryForBoolean("/*+ NEO4J FORCE_CYPHER */ MATCH (n) RETURN count(n) = 0");
+		return this.jdbcTemplate
+			.queryForBoolean("/*+ NEO4J FORCE_CYPHER */ " + ReadOnlyRouting.HINT + " MATCH (n) RETURN count(n) = 0");
 	}
 
 	@Override
@@ -56,25 +60,30 @@ final class Neo4jFlywaySchema extends Schema<Neo4jFlywayDatabase, Neo4jFlywayTab
 	@Override
 	protected void doClean() throws SQLException {
 		this.jdbcTemplate.execute("/*+ NEO4J FORCE_CYPHER */ MATCH (n) DETACH DELETE n");
+		invalidateTables();
 	}
 
-	@Override
-	protected Neo4jFlywayTable[] doAllTables() throws SQLException {
+	Neo4jFlywayConnection getConnection() {
+		return this.connection;
+	}
 
-		var result = new ArrayList<Neo4jFlywayTable>();
-		var metaData = this.database.getMainConnection().getJdbcConnection().getMetaData();
-		try (var rs = metaData.getTables(metaData.getConnection().getCatalog(), getName(), null,
-				new String[] { "TABLE" })) {
-			while (rs.next()) {
-				var tableName = rs.getString("TABLE_NAME");
-				if ("__Neo4jMigrationsLock".equals(tableName)) {
-					continue;
-				}
-				result.add(new Neo4jFlywayTable(this.jdbcTemplate, this.database, this, tableName));
-			}
-		}
+	void invalidateTables() {
+		this.connection.invalidateHistoryLabels();
+	}
 
-		return result.toArray(Neo4jFlywayTable[]::new);
+	/**
+	 * Only labels that occur together with {@code __Neo4jMigration} are considered to be
+	 * tables, and they are filtered on the server. The result is cached per connection
+	 * until a history table is created or dropped or the schema is cleaned.
+	 * @return all schema history tables
+	 * @throws SQLException if the tables cannot be retrieved
+	 */
+	@Override
+	protected Neo4jFlywayTable[] doAllTables() throws SQLException {
+		return this.connection.getHistoryLabels()
+			.stream()
+			.map(label -> new Neo4jFlywayTable(this.jdbcTemplate, this.database, this, label))
+			.toArray(Neo4jFlywayTable[]::new);
 	}
 
 	@Override
@@ -37,54 +37,61 @@ final class Neo4jFlywayTable extends Table<Neo4jFlywayDatabase, Neo4jFlywaySchem
 	@Override
 	protected boolean doExists() throws SQLException {
 
-		return this.jdbcTemplate.queryForBoolean(
-				"/*+ NEO4J FORCE_CYPHER */ MATCH (n) WHERE any(l IN labels(n) WHERE l = $1) RETURN count(n) > 0",
-				this.name);
+		return Retry.call(this.jdbcTemplate.getConnection(), "Checking for " + this.name,
+				() -> this.jdbcTemplate.queryForBoolean("/*+ NEO4J FORCE_CYPHER */ " + ReadOnlyRouting.HINT
+						+ " MATCH (n) WHERE any(l IN labels(n) WHERE l = $1) RETURN count(n) > 0", this.name));
 	}
 
+	/**
+	 * Locks the table by merging a lock node for the current transaction. Another lock
+	 * with the same name violates the unique constraint on the name. Merging makes this
+	 * idempotent, so that it can be retried.
+	 * @throws SQLException if the lock cannot be acquired
+	 */
 	@Override
 	protected void doLock() throws SQLException {
 		var currentTx = getCurrentTransactionId();
-		if (!this.jdbcTemplate.queryForBoolean(
-				"/*+ NEO4J FORCE_CYPHER */ MATCH (l:__Neo4jMigrationsLock {id: $1, name: $2}) RETURN count(l) > 0",
-				currentTx, name)) {
-			this.jdbcTemplate.execute("""
-					/*+ NEO4J FORCE_CYPHER */
-					CREATE (l:__Neo4jMigrationsLock {id: $1, name: $2})
-					FINISH
-					""", currentTx, name);
-		}
+		Retry.run(this.jdbcTemplate.getConnection(), "Locking " + this.name, () -> this.jdbcTemplate.execute("""
+				/*+ NEO4J FORCE_CYPHER */
+				MERGE (l:__Neo4jMigrationsLock {id: $1, name: $2})
+				FINISH
+				""", currentTx, this.name));
 	}
 
 	private String getCurrentTransactionId() throws SQLException {
-		var currentUser = this.getDatabase().getJdbcMetaData().getUserName();
-		return this.jdbcTemplate.queryForString("""
-				/*+ NEO4J FORCE_CYPHER */
-				SHOW TRANSACTIONS YIELD transactionId, username, currentQuery WHERE username = $1 AND currentQuery
-				CONTAINS 'SHOW TRANSACTIONS YIELD transactionId, username, currentQuery WHERE username = $1'
-				RETURN transactionId
-				""", currentUser);
+		var currentUser = this.schema.getConnection().getUserName();
+		return Retry.call(this.jdbcTemplate.getConnection(), "Retrieving the current transaction",
+				() -> this.jdbcTemplate.queryForString("""
+						/*+ NEO4J FORCE_CYPHER */
+						SHOW TRANSACTIONS YIELD transactionId, username, currentQuery WHERE username = $1 AND currentQuery
+						CONTAINS 'SHOW TRANSACTIONS YIELD transactionId, username, currentQuery WHERE username = $1'
+						RETURN transactionId
+						""", currentUser));
 	}
 
 	@Override
 	protected void doUnlock() throws SQLException {
-		this.jdbcTemplate.execute("""
+		var currentTx = getCurrentTransactionId();
+		Retry.run(this.jdbcTemplate.getConnection(), "Unlocking " + this.name, () -> this.jdbcTemplate.execute("""
 				/*+ NEO4J FORCE_CYPHER */
 				MATCH (l:__Neo4jMigrationsLock {id: $1, name: $2})
 				DELETE l
 				FINISH
-				""", getCurrentTransactionId(), name);
+				""", currentTx, this.name));
 	}
 
 	@Override
 	protected void doDrop() throws SQLException {
 
-		this.jdbcTemplate.execute("""
+		var statement = """
 				/*+ NEO4J FORCE_CYPHER */
 				MATCH (n:%s)
 				OPTIONAL MATCH (l:__Neo4jMigrationsLock {name: $1})
 				DETACH DELETE n, l
-				""".formatted(SchemaNames.sanitize(this.name).orElseThrow()), name);
+				""".formatted(Neo4jFlywayDatabase.label(this.name));
+		Retry.run(this.jdbcTemplate.getConnection(), "Dropping " + this.name,
+				() -> this.jdbcTemplate.execute(statement, this.name));
+		this.schema.invalidateTables();
 	}
 
 }
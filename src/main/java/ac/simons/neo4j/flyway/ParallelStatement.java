@@ -0,0 +1,232 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+/**
+ * Independent statements between the {@code parallel} and {@code end-parallel}
+ * directives, for example backfills of disjoint labels. They run concurrently, each on a
+ * connection of its own, and at most as many at once as given with the {@code parallel}
+ * directive, defaulting to {@link Neo4jFlywayOptions#parallelism()}. As soon as one of
+ * them fails, the ones not yet started are cancelled, the server transactions of the
+ * running ones are terminated and their statements are cancelled on the client. The
+ * block fails once the workers stopped, or after {@link #TERMINATION_TIMEOUT} at the
+ * latest.
+ * <p>
+ * The statements can't share the transaction of the migration, so the block can't be
+ * executed in one. The connections are opened through Flyway's connection factory and
+ * are therefore initialized like the connection of the migration, including
+ * {@code initSql}. The results and warnings of all statements are returned in the order
+ * of the statements, so that Flyway reports them as usual. Flyway records the time of
+ * the whole migration, which includes the time the block took as a whole.
+ *
+ * @author Michael J. Simons
+ */
+final class ParallelStatement implements SqlStatement {
+
+	private static final Log LOG = LogFactory.getLog(ParallelStatement.class);
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	/**
+	 * How long to wait for the workers after cancelling them.
+	 */
+	static final Duration TERMINATION_TIMEOUT = Duration.ofSeconds(30);
+
+	private final Neo4jFlywayDatabase database;
+
+	private final List<SqlStatement> statements;
+
+	private final int parallelism;
+
+	ParallelStatement(Neo4jFlywayDatabase database, List<SqlStatement> statements, int parallelism) {
+		this.database = database;
+		this.statements = List.copyOf(statements);
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * {@return the statements of this block}
+	 */
+	List<SqlStatement> getStatements() {
+		return this.statements;
+	}
+
+	@Override
+	public int getLineNumber() {
+		return this.statements.get(0).getLineNumber();
+	}
+
+	@Override
+	public String getSql() {
+		return this.statements.stream().map(SqlStatement::getSql).collect(Collectors.joining(";\n"));
+	}
+
+	@Override
+	public String getDelimiter() {
+		return this.statements.get(0).getDelimiter();
+	}
+
+	@Override
+	public boolean canExecuteInTransaction() {
+		return false;
+	}
+
+	@Override
+	public boolean isBatchable() {
+		return false;
+	}
+
+	@Override
+	public Results execute(JdbcTemplate jdbcTemplate, SqlScriptExecutor sqlScriptExecutor, Configuration config) {
+		var results = new Results();
+		if (this.database == null) {
+			results.setException(new SQLException("Parallel blocks can only be run as part of a migration"));
+			return results;
+		}
+		var start = System.nanoTime();
+		var executor = Executors.newFixedThreadPool(Math.min(this.parallelism, this.statements.size()), runnable -> {
+			var thread = new Thread(runnable, "neo4j-flyway-parallel-" + THREAD_COUNT.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		var completionService = new ExecutorCompletionService<Outcome>(executor);
+		var futures = new ArrayList<Future<Outcome>>();
+		var markers = new ArrayList<String>();
+		for (var statement : this.statements) {
+			var marker = StatementMarkers.newMarker();
+			markers.add(marker);
+			futures.add(completionService.submit(() -> run(statement, marker, sqlScriptExecutor, config)));
+		}
+
+		var outcomes = new HashMap<String, Outcome>();
+		var combinedNanos = 0L;
+		SQLException failure = null;
+		try {
+			for (int i = 0; i < this.statements.size() && failure == null; ++i) {
+				var outcome = completionService.take().get();
+				outcomes.put(outcome.marker(), outcome);
+				combinedNanos += outcome.nanos();
+				var exception = outcome.results().getException();
+				if (exception != null) {
+					failure = new SQLException("Statement at line %d of the parallel block failed: %s".formatted(
+							outcome.statement().getLineNumber(), exception.getMessage()), exception.getSQLState(),
+							exception);
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			failure = new SQLException("Interrupted while running statements in parallel", ex);
+		}
+		catch (ExecutionException ex) {
+			failure = (ex.getCause() instanceof SQLException sqlException) ? sqlException
+					: new SQLException("Could not run statements in parallel", ex.getCause());
+		}
+		finally {
+			if (failure != null) {
+				futures.forEach(future -> future.cancel(true));
+				var running = new ArrayList<>(markers);
+				running.removeAll(outcomes.keySet());
+				terminate(running);
+				running.forEach(StatementMarkers::cancel);
+			}
+			executor.shutdownNow();
+		}
+
+		if (failure != null) {
+			awaitTermination(executor);
+		}
+		else {
+			LOG.info("Ran %d statements in parallel in %d ms, taking %d ms combined".formatted(this.statements.size(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+					TimeUnit.NANOSECONDS.toMillis(combinedNanos)));
+		}
+		for (var marker : markers) {
+			var outcome = outcomes.get(marker);
+			if (outcome != null) {
+				outcome.results().getResults().forEach(results::addResult);
+				outcome.results().getWarnings().forEach(results::addWarning);
+				outcome.results().getErrors().forEach(results::addError);
+			}
+		}
+		results.setException(failure);
+		return results;
+	}
+
+	private Outcome run(SqlStatement statement, String marker, SqlScriptExecutor sqlScriptExecutor,
+			Configuration config) throws SQLException {
+		var start = System.nanoTime();
+		try (var connection = this.database.openConnection()) {
+			var jdbcTemplate = new JdbcTemplate(connection, this.database.getDatabaseType());
+			var results = StatementMarkers.apply(marker,
+					() -> statement.execute(jdbcTemplate, sqlScriptExecutor, config));
+			return new Outcome(statement, marker, results, System.nanoTime() - start);
+		}
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		try {
+			if (!executor.awaitTermination(TERMINATION_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+				LOG.warn("Statements of the parallel block are still running after %d s, giving up on them"
+					.formatted(TERMINATION_TIMEOUT.toSeconds()));
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void terminate(List<String> markers) {
+		if (markers.isEmpty()) {
+			return;
+		}
+		try (var connection = this.database.openConnection()) {
+			for (var marker : markers) {
+				ServerTransactions.terminate(connection, marker);
+			}
+		}
+		catch (SQLException | FlywayException ex) {
+			LOG.warn("Could not terminate the remaining statements of the parallel block: " + ex.getMessage());
+		}
+	}
+
+	private record Outcome(SqlStatement statement, String marker, Results results, long nanos) {
+	}
+
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import ac.simons.neo4j.flyway.api.Neo4jFlywayPreflight;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.ResourceProvider;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.scanner.Scanner;
+import org.flywaydb.core.internal.sqlscript.SqlScriptMetadata;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+/**
+ * An opt-in pre-flight check, registered with Flyway as {@link Neo4jFlywayPreflight}:
+ * Before the first pending migration is applied, all statements of all pending Cypher (or
+ * SQL) migrations are parsed with {@link Neo4jFlywayParser} and run with {@code EXPLAIN}
+ * prepended, concurrently and without touching any data. If any of them fails to compile,
+ * the migration is aborted before anything has been applied, with the location of every
+ * failing statement. Planner notifications, for example about cartesian products or
+ * missing indexes, are logged as warnings, see
+ * {@link Neo4jFlywayOptions#preflightReportWarnings()}.
+ * <p>
+ * Which migrations are pending is determined by Flyway itself, as with {@code info}. The
+ * scripts among them are loaded through the resource provider of the configuration, or
+ * scanned from its locations the same way Flyway does, and parsed with the same
+ * placeholders. The {@code EXPLAIN} statements run on connections of their own, taken
+ * from the configured data source.
+ * <p>
+ * Schema and administrative commands can't be explained and are skipped, as are
+ * non-script migrations.
+ *
+ * @author Michael J. Simons
+ */
+public final class Preflight implements Callback {
+
+	private static final Log LOG = LogFactory.getLog(Preflight.class);
+
+	private static final Pattern ADMINISTRATIVE_COMMAND = Pattern.compile(
+			"(?i)^(?:SHOW|DROP|ALTER|GRANT|DENY|REVOKE|START|STOP|TERMINATE|RENAME|ENABLE|DEALLOCATE|REALLOCATE"
+					+ "|EXPLAIN|PROFILE"
+					+ "|CREATE\\s+(?:OR\\s+REPLACE\\s+)?(?:COMPOSITE\\s+)?(?:DATABASE|ALIAS|USER|ROLE|SERVER))\\b");
+
+	/**
+	 * {@code CYPHER} pre-parser options, including the version, must come before
+	 * {@code EXPLAIN}.
+	 */
+	private static final Pattern PRE_PARSER_OPTIONS = Pattern
+		.compile("(?i)^(?:CYPHER(?:\\s+\\d+(?:\\.\\d+)?)?(?:\\s+[\\w.]+\\s*=\\s*[\\w.]+)*\\s+)+");
+
+	/**
+	 * {@code USE} clauses are part of the query, but must be skipped to find out what kind
+	 * of statement follows them.
+	 */
+	private static final Pattern USE_CLAUSES = Pattern
+		.compile("(?i)^(?:USE\\s+(?:`(?:[^`]|``)*`|[\\w.]+)(?:\\s*\\([^)]*\\))?\\s+)+");
+
+	private static final String CYPHER_HINT = "/*+ NEO4J FORCE_CYPHER */";
+
+	/**
+	 * Creates a new pre-flight check.
+	 */
+	public Preflight() {
+	}
+
+	@Override
+	public boolean supports(Event event, Context context) {
+		return event == Event.BEFORE_MIGRATE;
+	}
+
+	@Override
+	public boolean canHandleInTransaction(Event event, Context context) {
+		return true;
+	}
+
+	@Override
+	public void handle(Event event, Context context) {
+		var configuration = context.getConfiguration();
+		var resourceProvider = (configuration.getResourceProvider() != null) ? configuration.getResourceProvider()
+				: new Scanner<>(JavaMigration.class, configuration, configuration.getLocations());
+
+		var scripts = pending(configuration, resourceProvider);
+		if (scripts.isEmpty()) {
+			return;
+		}
+		Map<String, String> placeholders;
+		try {
+			placeholders = placeholders(configuration, context.getConnection());
+		}
+		catch (SQLException ex) {
+			throw new FlywayException("Could not determine placeholders for EXPLAIN pre-flight", ex);
+		}
+
+		var start = System.currentTimeMillis();
+		var failures = new ArrayList<String>();
+		var parallelism = Math.min(scripts.size(), Neo4jFlywayOptions.preflightParallelism());
+		var executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			var futures = new ArrayList<Future<List<String>>>();
+			for (var script : scripts) {
+				futures.add(executor.submit(() -> explain(configuration, resourceProvider, placeholders, script)));
+			}
+			for (var future : futures) {
+				failures.addAll(future.get());
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new FlywayException("Interrupted during EXPLAIN pre-flight", ex);
+		}
+		catch (ExecutionException ex) {
+			throw new FlywayException("EXPLAIN pre-flight could not be executed", ex.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		if (!failures.isEmpty()) {
+			throw new FlywayException("EXPLAIN pre-flight failed for %d statement(s):%n%s".formatted(failures.size(),
+					String.join(System.lineSeparator(), failures)));
+		}
+		LOG.info("EXPLAIN pre-flight of %d pending migration(s) succeeded in %d ms".formatted(scripts.size(),
+				System.currentTimeMillis() - start));
+	}
+
+	@Override
+	public String getCallbackName() {
+		return "Neo4j EXPLAIN pre-flight";
+	}
+
+	/**
+	 * Prepends {@code EXPLAIN} to the given query, after any pre-parser options.
+	 * @param query the query to explain, without leading comments
+	 * @return the query to execute
+	 */
+	static String explain(String query) {
+		var matcher = PRE_PARSER_OPTIONS.matcher(query);
+		var options = matcher.lookingAt() ? query.substring(0, matcher.end()) : "";
+		return options + "EXPLAIN " + query.substring(options.length());
+	}
+
+	/**
+	 * {@return whether the given query can be explained}
+	 * @param query the query to check, without leading comments
+	 */
+	static boolean isExplainable(String query) {
+		var matcher = PRE_PARSER_OPTIONS.matcher(query);
+		var body = matcher.lookingAt() ? query.substring(matcher.end()) : query;
+		matcher = USE_CLAUSES.matcher(body);
+		body = matcher.lookingAt() ? body.substring(matcher.end()) : body;
+		return !(ADMINISTRATIVE_COMMAND.matcher(body).find() || Neo4jFlywayParser.isCreateIndexOrConstraint(body));
+	}
+
+	private static List<String> explain(Configuration configuration, ResourceProvider resourceProvider,
+			Map<String, String> placeholders, LoadableResource script) throws SQLException {
+		var failures = new ArrayList<String>();
+		var parsingContext = new ParsingContext();
+		parsingContext.getPlaceholders().putAll(placeholders);
+		var parser = new Neo4jFlywayParser(configuration, resourceProvider, parsingContext, 10);
+		var metadata = SqlScriptMetadata
+			.fromResource(SqlScriptMetadata.getMetadataResource(resourceProvider, script), parser, configuration);
+		try (var connection = configuration.getDataSource().getConnection();
+				var statements = parser.parse(script, metadata)) {
+			connection.setReadOnly(true);
+			var translateSql = Optional.ofNullable(connection.getMetaData().getURL())
+				.map(url -> url.toLowerCase(Locale.ROOT).contains("enablesqltranslation=true"))
+				.orElse(false);
+			while (statements.hasNext()) {
+				for (var statement : explainable(statements.next())) {
+					try (var stmt = connection.createStatement()) {
+						var sql = statement.getSql();
+						if (translateSql && !sql.contains(CYPHER_HINT)) {
+							sql = connection.nativeSQL(sql);
+						}
+						var query = Neo4jFlywayParser.stripLeadingComments(sql);
+						if (!isExplainable(query)) {
+							continue;
+						}
+						stmt.execute(CYPHER_HINT + " " + explain(query));
+						if (Neo4jFlywayOptions.preflightReportWarnings()) {
+							reportWarnings(script, statement, stmt.getWarnings());
+						}
+					}
+					catch (SQLException ex) {
+						failures.add("%s (line %d): %s".formatted(script.getRelativePath(), statement.getLineNumber(),
+								ex.getMessage()));
+					}
+				}
+			}
+		}
+		return failures;
+	}
+
+	private static List<SqlStatement> explainable(SqlStatement statement) {
+		if (statement instanceof AwaitIndexesStatement) {
+			return List.of();
+		}
+		if (statement instanceof ParallelStatement parallelStatement) {
+			return parallelStatement.getStatements().stream().flatMap(s -> explainable(s).stream()).toList();
+		}
+		if (statement instanceof TimeoutStatement timeoutStatement) {
+			return explainable(timeoutStatement.getStatement());
+		}
+		if (statement instanceof CoalescedStatement coalescedStatement) {
+			// All coalesced statements have the same shape
+			return List.of(coalescedStatement.getFirst());
+		}
+		return List.of(statement);
+	}
+
+	private static void reportWarnings(LoadableResource script, SqlStatement statement, SQLWarning warnings) {
+		var messages = new ArrayList<String>();
+		for (var warning = warnings; warning != null; warning = warning.getNextWarning()) {
+			messages.add(warning.getMessage());
+		}
+		if (!messages.isEmpty()) {
+			LOG.warn("%s (line %d): %s".formatted(script.getRelativePath(), statement.getLineNumber(),
+					messages.stream().distinct().collect(Collectors.joining("; "))));
+		}
+	}
+
+	/**
+	 * Asks Flyway which migrations are pending, the same way {@code info} does, so that
+	 * the target, out of order migrations, cherry picking and custom resolvers are taken
+	 * into account, and looks up the resources of those that are scripts.
+	 */
+	private static List<LoadableResource> pending(Configuration configuration, ResourceProvider resourceProvider) {
+		if (configuration.isSkipExecutingMigrations()) {
+			return List.of();
+		}
+		var pending = Flyway.configure(configuration.getClassLoader())
+			.configuration(configuration)
+			.load()
+			.info()
+			.pending();
+		return Arrays.stream(pending)
+			.map(MigrationInfo::getScript)
+			.filter(Objects::nonNull)
+			.map(resourceProvider::getResource)
+			.filter(Objects::nonNull)
+			.toList();
+	}
+
+	/**
+	 * The placeholders Flyway provides in addition to the configured ones, see
+	 * {@link ParsingContext#populate(org.flywaydb.core.internal.database.base.Database, Configuration)}.
+	 */
+	private static Map<String, String> placeholders(Configuration configuration, Connection connection)
+			throws SQLException {
+		var prefix = "flyway" + configuration.getPlaceholderSeparator();
+		var defaultSchema = (configuration.getDefaultSchema() != null) ? configuration.getDefaultSchema()
+				: (configuration.getSchemas().length > 0) ? configuration.getSchemas()[0] : connection.getSchema();
+		var placeholders = new HashMap<String, String>();
+		placeholders.put(prefix + "defaultSchema", defaultSchema);
+		placeholders.put(prefix + "database", connection.getCatalog());
+		placeholders.put(prefix + "user",
+				System.getProperty("user.name") + "/" + connection.getMetaData().getUserName());
+		placeholders.put(prefix + "timestamp", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+		placeholders.put(prefix + "workingDirectory", (configuration.getWorkingDirectory() != null)
+				? configuration.getWorkingDirectory() : System.getProperty("user.dir"));
+		placeholders.put(prefix + "table", configuration.getTable());
+		placeholders.put(prefix + "environment", configuration.getCurrentEnvironmentName());
+		return placeholders;
+	}
+
+}
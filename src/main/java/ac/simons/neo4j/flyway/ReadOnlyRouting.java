@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The Neo4j JDBC driver derives the access mode of a transaction from
+ * {@link Connection#isReadOnly()} and routes read-only transactions to secondaries in a
+ * cluster. Flyway doesn't know about that, so we wrap the connection and flag it as
+ * read-only while a prepared statement that carries the {@link #HINT} executes, as long
+ * as the connection is in auto-commit mode. For queries, execution lasts until the result
+ * set is closed, as the transaction is open until then. Other statements on the same
+ * connection are not affected. The driver keeps track of the bookmarks on the
+ * connection, so those reads are causally consistent with the writes done before.
+ *
+ * @author Michael J. Simons
+ */
+final class ReadOnlyRouting {
+
+	/**
+	 * Marks a statement as read-only. Must be put after the Cypher hint, if any.
+	 */
+	static final String HINT = "/* neo4j-flyway: read-only */";
+
+	static Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(ReadOnlyRouting.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					if ("prepareStatement".equals(method.getName()) && args != null && args.length > 0
+							&& args[0] instanceof String sql && sql.contains(HINT)) {
+						var statement = (PreparedStatement) invoke(connection, method, args);
+						return readOnly(statement, new Execution(connection));
+					}
+					return invoke(connection, method, args);
+				});
+	}
+
+	private static PreparedStatement readOnly(PreparedStatement statement, Execution execution) {
+		return (PreparedStatement) Proxy.newProxyInstance(ReadOnlyRouting.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+					var name = method.getName();
+					if ("close".equals(name)) {
+						try {
+							return invoke(statement, method, args);
+						}
+						finally {
+							execution.end();
+						}
+					}
+					if (!name.startsWith("execute")) {
+						return invoke(statement, method, args);
+					}
+
+					execution.begin();
+					var ended = true;
+					try {
+						var result = invoke(statement, method, args);
+						if ("executeQuery".equals(name) && result instanceof ResultSet resultSet) {
+							// The transaction stays open until the result set is closed
+							ended = false;
+							return closing(resultSet, execution);
+						}
+						return result;
+					}
+					finally {
+						if (ended) {
+							execution.end();
+						}
+					}
+				});
+	}
+
+	private static ResultSet closing(ResultSet resultSet, Execution execution) {
+		return (ResultSet) Proxy.newProxyInstance(ReadOnlyRouting.class.getClassLoader(),
+				new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+					if (!"close".equals(method.getName())) {
+						return invoke(resultSet, method, args);
+					}
+					try {
+						return invoke(resultSet, method, args);
+					}
+					finally {
+						execution.end();
+					}
+				});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private ReadOnlyRouting() {
+	}
+
+	/**
+	 * Flags the connection as read-only for a single execution and restores the previous
+	 * state afterwards.
+	 */
+	private static final class Execution {
+
+		private final Connection connection;
+
+		private boolean applied;
+
+		Execution(Connection connection) {
+			this.connection = connection;
+		}
+
+		void begin() throws SQLException {
+			if (this.connection.getAutoCommit() && !this.connection.isReadOnly()) {
+				this.connection.setReadOnly(true);
+				this.applied = true;
+			}
+		}
+
+		void end() throws SQLException {
+			if (this.applied) {
+				this.applied = false;
+				this.connection.setReadOnly(false);
+			}
+		}
+
+	}
+
+}
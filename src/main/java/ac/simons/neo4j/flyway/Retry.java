@@ -0,0 +1,191 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+
+/**
+ * Retries the plugin's own, idempotent statements when they fail with a transient error,
+ * as they do during leader elections or rolling upgrades of a cluster. Waits between
+ * attempts with exponential backoff and jitter, so that several clients don't hit a
+ * recovering cluster at the same time. A failure inside a transaction dooms the whole
+ * transaction, so single operations are only retried in auto-commit mode. Transactions
+ * are retried as a whole by the {@link RetryingTransactionalExecutionTemplate}.
+ *
+ * @author Michael J. Simons
+ */
+final class Retry {
+
+	private static final Log LOG = LogFactory.getLog(Retry.class);
+
+	/**
+	 * Codes of errors that are worth another attempt, as they might appear in the
+	 * messages of the driver.
+	 */
+	private static final List<String> TRANSIENT_CODES = List.of("Neo.TransientError.",
+			"Neo.ClientError.Cluster.NotALeader");
+
+	static void run(Connection connection, String operation, SqlRunnable runnable) throws SQLException {
+		call(connection, operation, () -> {
+			runnable.run();
+			return null;
+		});
+	}
+
+	static <T> T call(Connection connection, String operation, Neo4jFlywayConnection.SqlSupplier<T> supplier)
+			throws SQLException {
+		return call(Policy.fromOptions(), connection, operation, supplier);
+	}
+
+	static <T> T call(Policy policy, Connection connection, String operation,
+			Neo4jFlywayConnection.SqlSupplier<T> supplier) throws SQLException {
+		return call(connection.getAutoCommit() ? policy : policy.once(), operation, supplier);
+	}
+
+	/**
+	 * Calls the supplier until it succeeds, fails with an error that is not transient or
+	 * the attempts are used up. Unchecked exceptions are retried as well if they are
+	 * caused by a transient error, as Flyway wraps the failures of whole transactions.
+	 * @param <T> the type of the result
+	 * @param policy how often and how long to retry
+	 * @param operation the operation, for logging
+	 * @param supplier the operation itself
+	 * @return the result of the first successful attempt
+	 * @throws SQLException the failure of the last attempt
+	 */
+	static <T> T call(Policy policy, String operation, Neo4jFlywayConnection.SqlSupplier<T> supplier)
+			throws SQLException {
+		var maxAttempts = policy.maxAttempts();
+		var metrics = Neo4jFlywayMetrics.get();
+		for (int attempt = 1;; ++attempt) {
+			try {
+				var result = supplier.get();
+				if (attempt > 1) {
+					metrics.recovered();
+				}
+				return result;
+			}
+			catch (SQLException | RuntimeException ex) {
+				if (!isTransient(ex)) {
+					throw ex;
+				}
+				if (attempt >= maxAttempts) {
+					if (maxAttempts > 1) {
+						metrics.exhausted();
+					}
+					throw ex;
+				}
+				var backoff = policy.backoff(attempt);
+				LOG.warn("%s failed with a transient error, retrying in %d ms (attempt %d of %d): %s"
+					.formatted(operation, backoff.toMillis(), attempt + 1, maxAttempts, ex.getMessage()));
+				metrics.retried();
+				try {
+					Thread.sleep(backoff.toMillis());
+				}
+				catch (InterruptedException iex) {
+					Thread.currentThread().interrupt();
+					ex.addSuppressed(iex);
+					throw ex;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Classifies a failure as transient if any exception in the chain of causes is a
+	 * {@link SQLTransientException} or carries one of the well known transient Neo4j
+	 * error codes.
+	 * @param ex the failure to classify
+	 * @return {@literal true} if another attempt might succeed
+	 */
+	static boolean isTransient(Throwable ex) {
+		for (var cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SQLTransientException) {
+				return true;
+			}
+			var message = cause.getMessage();
+			if (message != null && TRANSIENT_CODES.stream().anyMatch(message::contains)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Retry() {
+	}
+
+	/**
+	 * An operation without result that may throw an {@link SQLException}.
+	 */
+	@FunctionalInterface
+	interface SqlRunnable {
+
+		void run() throws SQLException;
+
+	}
+
+	/**
+	 * How often and how long to retry.
+	 *
+	 * @param maxAttempts the maximum number of attempts, including the first one
+	 * @param initialBackoff the backoff before the second attempt, doubled for every
+	 * further attempt
+	 * @param maxBackoff the upper bound of the backoff
+	 */
+	record Policy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+		Policy {
+			if (maxAttempts < 1) {
+				throw new IllegalArgumentException("At least one attempt is required");
+			}
+		}
+
+		static Policy fromOptions() {
+			return new Policy(Neo4jFlywayOptions.retryMaxAttempts(), Neo4jFlywayOptions.retryInitialBackoff(),
+					Neo4jFlywayOptions.retryMaxBackoff());
+		}
+
+		/**
+		 * {@return this policy with a single attempt}
+		 */
+		Policy once() {
+			return new Policy(1, this.initialBackoff, this.maxBackoff);
+		}
+
+		/**
+		 * Computes the backoff after a failed attempt, with "equal jitter": Half of the
+		 * exponential backoff is fixed, the other half is random.
+		 * @param attempt the failed attempt, starting at 1
+		 * @return the time to wait before the next attempt
+		 */
+		Duration backoff(int attempt) {
+			var exponential = this.initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+			var cap = Math.max(0, Math.min(this.maxBackoff.toMillis(), exponential));
+			var half = cap / 2;
+			return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(cap - half + 1));
+		}
+
+	}
+
+}
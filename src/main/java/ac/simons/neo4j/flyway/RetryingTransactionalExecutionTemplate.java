@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.ExecutionTemplate;
+import org.flywaydb.core.internal.jdbc.TransactionalExecutionTemplate;
+
+/**
+ * Runs the transactions of Flyway, such as a migration together with locking the schema
+ * history and recording the migration, and retries them as a whole when they fail with a
+ * transient error. Neo4j rolls back a transaction on any error, so the next attempt
+ * starts from scratch. Transactions are only retried if this template started them, not
+ * if it is nested in a transaction that is already running.
+ *
+ * @author Michael J. Simons
+ */
+final class RetryingTransactionalExecutionTemplate implements ExecutionTemplate {
+
+	private final Connection connection;
+
+	private final ExecutionTemplate delegate;
+
+	RetryingTransactionalExecutionTemplate(Connection connection, boolean rollbackOnException) {
+		this.connection = connection;
+		this.delegate = new TransactionalExecutionTemplate(connection, rollbackOnException);
+	}
+
+	@Override
+	public <T> T execute(Callable<T> callable) {
+		try {
+			return Retry.call(this.connection, "Running a transaction", () -> this.delegate.execute(callable));
+		}
+		catch (SQLException ex) {
+			throw new FlywaySqlException("Unable to run transaction", ex);
+		}
+	}
+
+}
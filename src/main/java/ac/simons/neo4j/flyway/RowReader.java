@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Reads rows one by one from CSV files with a header line or from JSON Lines files, so
+ * that the memory needed doesn't depend on the size of the file. Values from CSV files
+ * are strings, empty values are {@literal null}, same as with {@code LOAD CSV}. JSON
+ * Lines files must contain one object per line, anything else is rejected, and need
+ * Jackson Databind, which is an optional dependency. A checksum is computed over all
+ * lines read, the same way Flyway computes checksums of migrations.
+ *
+ * @author Michael J. Simons
+ */
+final class RowReader implements Closeable {
+
+	private static final String JACKSON = "com.fasterxml.jackson.databind.ObjectMapper";
+
+	private final String name;
+
+	private final BufferedReader reader;
+
+	private final boolean csv;
+
+	private final CRC32 crc32 = new CRC32();
+
+	private List<String> header;
+
+	private long lineNumber;
+
+	private RowReader(String name, Reader reader, boolean csv) {
+		this.name = name;
+		this.reader = new BufferedReader(reader);
+		this.csv = csv;
+	}
+
+	/**
+	 * {@return whether rows can be read from a file with the given name}
+	 * @param name the name of a file
+	 */
+	static boolean isSupported(String name) {
+		var lowerCaseName = name.toLowerCase(Locale.ROOT);
+		return lowerCaseName.endsWith(".csv") || lowerCaseName.endsWith(".jsonl");
+	}
+
+	static RowReader open(String name, Reader reader) throws IOException {
+		if (!isSupported(name)) {
+			throw new IllegalArgumentException("Unsupported file " + name + ", only .csv and .jsonl are supported");
+		}
+		var csv = name.toLowerCase(Locale.ROOT).endsWith(".csv");
+		if (!csv && !isJacksonAvailable()) {
+			throw new IOException("Cannot read " + name + ", JSON Lines files require "
+					+ "com.fasterxml.jackson.core:jackson-databind on the class or module path");
+		}
+		return new RowReader(name, reader, csv);
+	}
+
+	/**
+	 * {@return whether Jackson can be loaded}, without initializing {@link JsonLines}
+	 */
+	private static boolean isJacksonAvailable() {
+		try {
+			Class.forName(JACKSON, false, RowReader.class.getClassLoader());
+			return true;
+		}
+		catch (ClassNotFoundException | LinkageError ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the next row.
+	 * @return the next row or {@literal null} if there are no more rows
+	 * @throws IOException if the file cannot be read or is malformed
+	 */
+	Map<String, Object> next() throws IOException {
+		String line;
+		do {
+			line = nextLine();
+			if (line == null) {
+				return null;
+			}
+		}
+		while (line.isBlank());
+		return this.csv ? nextCsvRow(line) : nextJsonRow(line);
+	}
+
+	/**
+	 * {@return the checksum of all lines read so far}
+	 */
+	int getChecksum() {
+		return (int) this.crc32.getValue();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.reader.close();
+	}
+
+	private String nextLine() throws IOException {
+		var line = this.reader.readLine();
+		if (line == null) {
+			return null;
+		}
+		if (this.lineNumber++ == 0 && line.startsWith("\uFEFF")) {
+			line = line.substring(1);
+		}
+		this.crc32.update(line.getBytes(StandardCharsets.UTF_8));
+		return line;
+	}
+
+	private Map<String, Object> nextCsvRow(String firstLine) throws IOException {
+		if (this.header == null) {
+			this.header = parseCsvRecord(firstLine).stream().map(v -> (v != null) ? v.strip() : "").toList();
+			return next();
+		}
+		var values = parseCsvRecord(firstLine);
+		if (values.size() > this.header.size()) {
+			throw malformed("Expected at most %d values, got %d".formatted(this.header.size(), values.size()));
+		}
+		var row = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < this.header.size(); ++i) {
+			row.put(this.header.get(i), (i < values.size()) ? values.get(i) : null);
+		}
+		return row;
+	}
+
+	private List<String> parseCsvRecord(String firstLine) throws IOException {
+		var values = new ArrayList<String>();
+		var value = new StringBuilder();
+		var line = firstLine;
+		var quoted = false;
+		var wasQuoted = false;
+		var i = 0;
+		while (true) {
+			if (i == line.length()) {
+				if (!quoted) {
+					values.add((value.isEmpty() && !wasQuoted) ? null : value.toString());
+					return values;
+				}
+				line = nextLine();
+				if (line == null) {
+					throw malformed("Unterminated quoted value");
+				}
+				value.append('\n');
+				i = 0;
+				continue;
+			}
+			var c = line.charAt(i++);
+			if (quoted) {
+				if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+					value.append('"');
+					++i;
+				}
+				else if (c == '"') {
+					quoted = false;
+				}
+				else {
+					value.append(c);
+				}
+			}
+			else if (c == '"' && value.isEmpty()) {
+				quoted = true;
+				wasQuoted = true;
+			}
+			else if (c == ',') {
+				values.add((value.isEmpty() && !wasQuoted) ? null : value.toString());
+				value.setLength(0);
+				wasQuoted = false;
+			}
+			else {
+				value.append(c);
+			}
+		}
+	}
+
+	private Map<String, Object> nextJsonRow(String line) throws IOException {
+		if (!line.strip().startsWith("{")) {
+			throw malformed("Expected a JSON object");
+		}
+		try {
+			return JsonLines.parse(line);
+		}
+		catch (IllegalArgumentException ex) {
+			throw malformed(ex.getMessage());
+		}
+	}
+
+	private IOException malformed(String message) {
+		return new IOException("%s, line %d: %s".formatted(this.name, this.lineNumber, message));
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+
+/**
+ * Terminates server transactions running statements marked by {@link StatementMarkers}.
+ *
+ * @author Michael J. Simons
+ */
+final class ServerTransactions {
+
+	private static final Log LOG = LogFactory.getLog(ServerTransactions.class);
+
+	private static final String FIND_TRANSACTIONS = """
+			/*+ NEO4J FORCE_CYPHER */
+			SHOW TRANSACTIONS YIELD transactionId, currentQuery
+			WHERE currentQuery CONTAINS $1
+			RETURN transactionId
+			""";
+
+	private static final String TERMINATE_TRANSACTION = """
+			/*+ NEO4J FORCE_CYPHER */
+			TERMINATE TRANSACTION $1
+			""";
+
+	/**
+	 * Terminates all transactions currently running a statement with the given marker.
+	 * @param connection the connection to use, must not be the one running the statement
+	 * @param marker the marker of the statement
+	 * @return the ids of the terminated transactions
+	 * @throws SQLException if the transactions cannot be looked up or terminated
+	 */
+	static List<String> terminate(Connection connection, String marker) throws SQLException {
+		var transactionIds = new ArrayList<String>();
+		try (var stmt = connection.prepareStatement(FIND_TRANSACTIONS)) {
+			stmt.setString(1, marker);
+			try (var rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					transactionIds.add(rs.getString("transactionId"));
+				}
+			}
+		}
+		if (transactionIds.isEmpty()) {
+			return transactionIds;
+		}
+		try (var stmt = connection.prepareStatement(TERMINATE_TRANSACTION)) {
+			for (var transactionId : transactionIds) {
+				LOG.warn("Terminating transaction " + transactionId);
+				stmt.setString(1, transactionId);
+				stmt.execute();
+			}
+		}
+		Neo4jFlywayMetrics.get().terminated(transactionIds.size());
+		return transactionIds;
+	}
+
+	private ServerTransactions() {
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Neither the JDBC driver nor Flyway tell which server transaction runs a statement.
+ * While a marker is active on the current thread, the connection wrapped by this class
+ * appends it as a comment to the text of every statement, so that the transaction can be
+ * found via {@code SHOW TRANSACTIONS} by its {@code currentQuery}. Statements translated
+ * from SQL lose their comments and can't be found that way, but the statements created
+ * while a marker is active can still be cancelled on the client.
+ *
+ * @author Michael J. Simons
+ */
+final class StatementMarkers {
+
+	private static final ThreadLocal<List<String>> CURRENT = new ThreadLocal<>();
+
+	private static final Map<String, Queue<Statement>> STATEMENTS = new ConcurrentHashMap<>();
+
+	private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+			"executeLargeUpdate", "addBatch");
+
+	/**
+	 * {@return a new, unique marker}
+	 */
+	static String newMarker() {
+		return "/* neo4j-flyway: statement " + UUID.randomUUID() + " */";
+	}
+
+	/**
+	 * Marks all statements created on wrapped connections of the current thread while
+	 * running the given action, in addition to any marker already active.
+	 * @param marker the marker to use
+	 * @param action the action to run
+	 * @param <T> the type of the result
+	 * @return the result of the action
+	 */
+	static <T> T apply(String marker, Supplier<T> action) {
+		var previous = CURRENT.get();
+		var markers = new ArrayList<String>();
+		if (previous != null) {
+			markers.addAll(previous);
+		}
+		markers.add(marker);
+		CURRENT.set(List.copyOf(markers));
+		STATEMENTS.put(marker, new ConcurrentLinkedQueue<>());
+		try {
+			return action.get();
+		}
+		finally {
+			STATEMENTS.remove(marker);
+			if (previous == null) {
+				CURRENT.remove();
+			}
+			else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Cancels all statements created on wrapped connections while the given marker is
+	 * active, from any thread.
+	 * @param marker the marker of the statements to cancel
+	 * @return the number of statements cancelled
+	 */
+	static int cancel(String marker) {
+		var statements = STATEMENTS.get(marker);
+		if (statements == null) {
+			return 0;
+		}
+		var cancelled = 0;
+		for (var statement : statements) {
+			try {
+				if (!statement.isClosed()) {
+					statement.cancel();
+					++cancelled;
+				}
+			}
+			catch (SQLException ex) {
+				// Not cancelled, the statement might have just been closed
+			}
+		}
+		return cancelled;
+	}
+
+	static Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(StatementMarkers.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					var markers = CURRENT.get();
+					if (markers == null) {
+						return invoke(connection, method, args);
+					}
+					var marker = String.join("\n", markers);
+					var name = method.getName();
+					if (("prepareStatement".equals(name) || "prepareCall".equals(name))
+							&& args[0] instanceof String sql) {
+						args[0] = mark(sql, marker);
+						return track((Statement) invoke(connection, method, args), markers);
+					}
+					else if ("createStatement".equals(name)) {
+						return wrap(track((Statement) invoke(connection, method, args), markers), marker);
+					}
+					return invoke(connection, method, args);
+				});
+	}
+
+	private static Statement track(Statement statement, List<String> markers) {
+		for (var marker : markers) {
+			var statements = STATEMENTS.get(marker);
+			if (statements != null) {
+				statements.add(statement);
+			}
+		}
+		return statement;
+	}
+
+	private static Statement wrap(Statement statement, String marker) {
+		return (Statement) Proxy.newProxyInstance(StatementMarkers.class.getClassLoader(),
+				new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+					if (EXECUTE_METHODS.contains(method.getName()) && args != null && args.length > 0
+							&& args[0] instanceof String sql) {
+						args[0] = mark(sql, marker);
+					}
+					return invoke(statement, method, args);
+				});
+	}
+
+	private static String mark(String sql, String marker) {
+		return sql.endsWith(marker) ? sql : sql + "\n" + marker;
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private StatementMarkers() {
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The shape of a simple write statement: The statement with all literals replaced by
+ * properties of a {@code row} variable, and the literals themselves. Statements with the
+ * same shape differ only in their string and number literals and can be run as one
+ * {@code UNWIND} over all their literals.
+ * <p>
+ * Only statements are considered whose outcome doesn't depend on whether they run one
+ * after another or clause by clause over a list of rows: Statements consisting only of
+ * {@code CREATE} and {@code SET} clauses, or of a single {@code MERGE} clause with
+ * optional {@code ON CREATE}, {@code ON MATCH} and {@code SET} clauses. Anything that
+ * reads the graph, projects, aggregates or already uses parameters is not coalesced.
+ *
+ * @param prefix leading comments and hints of the statement, kept as is
+ * @param template the statement without leading comments, literals replaced
+ * @param literals the literals in order of appearance
+ * @author Michael J. Simons
+ */
+record StatementShape(String prefix, String template, List<Object> literals) {
+
+	static final String ROW = "row";
+
+	private static final Pattern WRITE_CLAUSE = Pattern.compile("(?i)^(?:CREATE|MERGE)\\s*\\(");
+
+	private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?");
+
+	private static final Set<String> READING_OR_PROJECTING_KEYWORDS = Set.of("MATCH", "OPTIONAL", "WITH", "RETURN",
+			"CALL", "USE", "LOAD", "LIMIT", "SKIP", "UNION", "UNWIND", "ORDER", "FOREACH", "DELETE", "DETACH",
+			"EXISTS", "COUNT", "COLLECT");
+
+	/**
+	 * Computes the shape of a statement.
+	 * @param sql the statement
+	 * @return the shape of the statement or an empty optional if the statement must not
+	 * be coalesced
+	 */
+	static Optional<StatementShape> of(String sql) {
+		var body = Neo4jFlywayParser.stripLeadingComments(sql).stripTrailing();
+		if (body.endsWith(";")) {
+			body = body.substring(0, body.length() - 1).stripTrailing();
+		}
+		if (!WRITE_CLAUSE.matcher(body).find()) {
+			return Optional.empty();
+		}
+		var prefix = sql.substring(0, sql.length() - Neo4jFlywayParser.stripLeadingComments(sql).length());
+		var template = new StringBuilder();
+		var literals = new ArrayList<>();
+		var keywords = new ArrayList<String>();
+		var length = body.length();
+		var i = 0;
+		while (i < length) {
+			var c = body.charAt(i);
+			if (c == '\'' || c == '"') {
+				var end = endOfString(body, i);
+				if (end < 0) {
+					return Optional.empty();
+				}
+				try {
+					literals.add(unescape(body.substring(i + 1, end - 1)));
+				}
+				catch (NumberFormatException ex) {
+					return Optional.empty();
+				}
+				template.append(placeholder(literals.size() - 1));
+				i = end;
+			}
+			else if (c == '`') {
+				var end = body.indexOf('`', i + 1);
+				if (end < 0) {
+					return Optional.empty();
+				}
+				template.append(body, i, end + 1);
+				i = end + 1;
+			}
+			else if (c == '/' && i + 1 < length && (body.charAt(i + 1) == '/' || body.charAt(i + 1) == '*')) {
+				var end = (body.charAt(i + 1) == '/') ? body.indexOf('\n', i) : body.indexOf("*/", i + 2);
+				end = (end < 0) ? length : end + ((body.charAt(i + 1) == '/') ? 0 : 2);
+				template.append(body, i, end);
+				i = end;
+			}
+			else if (c == '$' || c == ';') {
+				return Optional.empty();
+			}
+			else if (Character.isDigit(c)) {
+				var matcher = NUMBER.matcher(body).region(i, length);
+				if (!matcher.lookingAt() || (i > 0 && body.charAt(i - 1) == '.') || (matcher.end() < length
+						&& Character.isJavaIdentifierPart(body.charAt(matcher.end())))) {
+					return Optional.empty();
+				}
+				var number = toNumber(matcher.group());
+				if (number.isEmpty()) {
+					return Optional.empty();
+				}
+				literals.add(number.get());
+				template.append(placeholder(literals.size() - 1));
+				i = matcher.end();
+			}
+			else if (Character.isJavaIdentifierStart(c)) {
+				var end = i + 1;
+				while (end < length && Character.isJavaIdentifierPart(body.charAt(end))) {
+					++end;
+				}
+				var word = body.substring(i, end);
+				if (ROW.equals(word)) {
+					return Optional.empty();
+				}
+				keywords.add(word.toUpperCase(Locale.ROOT));
+				template.append(word);
+				i = end;
+			}
+			else {
+				template.append(c);
+				++i;
+			}
+		}
+		if (!isOrderIndependent(keywords)) {
+			return Optional.empty();
+		}
+		return Optional.of(new StatementShape(prefix, template.toString(), List.copyOf(literals)));
+	}
+
+	/**
+	 * {@return the statement that runs this shape once per row in {@code $1}}
+	 */
+	String toUnwind() {
+		return this.prefix + "UNWIND $1 AS " + ROW + "\n" + this.template;
+	}
+
+	/**
+	 * {@return the literals of this statement as one row for {@link #toUnwind()}}
+	 */
+	Map<String, Object> toRow() {
+		var row = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < this.literals.size(); ++i) {
+			row.put("p" + i, this.literals.get(i));
+		}
+		return row;
+	}
+
+	/**
+	 * {@return {@literal true} if a statement with the other shape can be run together
+	 * with this one}
+	 * @param other the shape of the other statement
+	 */
+	boolean isCompatibleWith(StatementShape other) {
+		return this.prefix.equals(other.prefix) && this.template.equals(other.template);
+	}
+
+	private static String placeholder(int index) {
+		return ROW + ".p" + index;
+	}
+
+	private static boolean isOrderIndependent(List<String> keywords) {
+		for (int i = 0; i < keywords.size(); ++i) {
+			var keyword = keywords.get(i);
+			var onMatch = "MATCH".equals(keyword) && i > 0 && "ON".equals(keywords.get(i - 1));
+			if (READING_OR_PROJECTING_KEYWORDS.contains(keyword) && !onMatch) {
+				return false;
+			}
+		}
+		var merges = keywords.stream().filter("MERGE"::equals).count();
+		if (merges == 0) {
+			return true;
+		}
+		if (merges > 1) {
+			return false;
+		}
+		for (int i = 0; i < keywords.size(); ++i) {
+			if ("CREATE".equals(keywords.get(i)) && (i == 0 || !"ON".equals(keywords.get(i - 1)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Optional<Object> toNumber(String value) {
+		try {
+			if (value.contains(".") || value.contains("e") || value.contains("E")) {
+				return Optional.of(Double.valueOf(value));
+			}
+			return Optional.of(Long.valueOf(value));
+		}
+		catch (NumberFormatException ex) {
+			return Optional.empty();
+		}
+	}
+
+	private static int endOfString(String body, int start) {
+		var quote = body.charAt(start);
+		for (int i = start + 1; i < body.length(); ++i) {
+			var c = body.charAt(i);
+			if (c == '\\') {
+				++i;
+			}
+			else if (c == quote) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	private static String unescape(String value) {
+		var result = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); ++i) {
+			var c = value.charAt(i);
+			if (c != '\\' || i + 1 == value.length()) {
+				result.append(c);
+				continue;
+			}
+			var next = value.charAt(++i);
+			switch (next) {
+				case 'b' -> result.append('\b');
+				case 'f' -> result.append('\f');
+				case 'n' -> result.append('\n');
+				case 'r' -> result.append('\r');
+				case 't' -> result.append('\t');
+				case 'u' -> {
+					if (i + 4 < value.length()) {
+						result.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+						i += 4;
+					}
+					else {
+						result.append(next);
+					}
+				}
+				default -> result.append(next);
+			}
+		}
+		return result.toString();
+	}
+
+}
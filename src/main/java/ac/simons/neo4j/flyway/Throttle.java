@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Adapts the size of batches and paces them, so that backfills can run next to live
+ * traffic. A batch taking longer than the target latency halves the size of the next
+ * one and is followed by a pause as long as it overshot, a faster batch grows the next
+ * one by a quarter, up to the size that has been asked for. Pauses are extended as needed
+ * to stay below the maximum rate. One throttle is shared by all batched statements of a
+ * migration, see {@link Neo4jFlywayOptions#throttle()}.
+ * <p>
+ * The inner transactions of {@code CALL {} IN TRANSACTIONS} are driven by the server, so
+ * those statements can't be paced. They only get the current batch size as number of
+ * rows per transaction.
+ *
+ * @author Michael J. Simons
+ */
+final class Throttle {
+
+	private static final Pattern IN_TRANSACTIONS = Pattern
+		.compile("(?i)\\bIN\\s+(?:\\S+\\s+CONCURRENT\\s+)?TRANSACTIONS\\b(?:\\s+OF\\s+(\\S+)\\s+ROWS?\\b)?");
+
+	private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+	private static final int DEFAULT_ROWS_PER_TRANSACTION = 1000;
+
+	private final long targetLatencyNanos;
+
+	private final double maxRate;
+
+	private int batchSize;
+
+	Throttle(Duration targetLatency, double maxRate) {
+		this.targetLatencyNanos = targetLatency.toNanos();
+		this.maxRate = maxRate;
+	}
+
+	/**
+	 * {@return a throttle configured from the options or {@literal null} if throttling is
+	 * disabled}
+	 */
+	static Throttle fromOptions() {
+		return Neo4jFlywayOptions.throttle()
+				? new Throttle(Neo4jFlywayOptions.throttleTargetLatency(), Neo4jFlywayOptions.throttleMaxRate())
+				: null;
+	}
+
+	static boolean usesTransactions(String sql) {
+		return IN_TRANSACTIONS.matcher(Neo4jFlywayParser.stripLeadingComments(sql)).find();
+	}
+
+	/**
+	 * {@return the size of the next batch}
+	 * @param maxBatchSize the size asked for
+	 */
+	synchronized int batchSize(int maxBatchSize) {
+		return (this.batchSize == 0) ? maxBatchSize : Math.min(this.batchSize, maxBatchSize);
+	}
+
+	/**
+	 * Sets the number of rows per inner transaction of a {@code CALL {} IN TRANSACTIONS}
+	 * statement to the current batch size, unless it is smaller already or not a number.
+	 * @param sql the statement
+	 * @return the statement with the current batch size
+	 */
+	String withRowsPerTransaction(String sql) {
+		var matcher = IN_TRANSACTIONS.matcher(sql);
+		if (!matcher.find()) {
+			return sql;
+		}
+		if (matcher.group(1) == null) {
+			return sql.substring(0, matcher.end()) + " OF " + batchSize(DEFAULT_ROWS_PER_TRANSACTION) + " ROWS"
+					+ sql.substring(matcher.end());
+		}
+		if (!NUMBER.matcher(matcher.group(1)).matches()) {
+			return sql;
+		}
+		var rows = Integer.parseInt(matcher.group(1));
+		return sql.substring(0, matcher.start(1)) + batchSize(rows) + sql.substring(matcher.end(1));
+	}
+
+	/**
+	 * Adapts the batch size to the latency of a batch and pauses as needed.
+	 * @param rows the number of rows in the batch
+	 * @param latencyNanos how long the batch took
+	 * @throws SQLException if interrupted while pausing
+	 */
+	void completed(int rows, long latencyNanos) throws SQLException {
+		long pauseNanos = 0;
+		int nextBatchSize;
+		synchronized (this) {
+			if (latencyNanos > this.targetLatencyNanos) {
+				this.batchSize = Math.max(1, rows / 2);
+				pauseNanos = latencyNanos - this.targetLatencyNanos;
+			}
+			else {
+				this.batchSize = rows + Math.max(1, rows / 4);
+			}
+			nextBatchSize = this.batchSize;
+		}
+		if (this.maxRate > 0) {
+			pauseNanos = Math.max(pauseNanos, (long) (rows / this.maxRate * 1e9) - latencyNanos);
+		}
+		Neo4jFlywayMetrics.get().throttled(rows / ((latencyNanos + pauseNanos) / 1e9), nextBatchSize);
+		if (pauseNanos <= 0) {
+			return;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(pauseNanos);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while throttling", ex);
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+/**
+ * A {@code CALL {} IN TRANSACTIONS} statement that gets the rows per transaction from
+ * the {@link Throttle} of its migration when it is executed. The statement neither pauses
+ * nor adapts the throttle: its duration covers all inner transactions, which the server
+ * runs on its own, and says nothing about the latency of a single one.
+ *
+ * @author Michael J. Simons
+ */
+final class ThrottledStatement implements SqlStatement {
+
+	private final SqlStatement statement;
+
+	private final Throttle throttle;
+
+	ThrottledStatement(SqlStatement statement, Throttle throttle) {
+		this.statement = statement;
+		this.throttle = throttle;
+	}
+
+	Throttle getThrottle() {
+		return this.throttle;
+	}
+
+	@Override
+	public int getLineNumber() {
+		return this.statement.getLineNumber();
+	}
+
+	@Override
+	public String getSql() {
+		return this.statement.getSql();
+	}
+
+	@Override
+	public String getDelimiter() {
+		return this.statement.getDelimiter();
+	}
+
+	@Override
+	public boolean canExecuteInTransaction() {
+		return this.statement.canExecuteInTransaction();
+	}
+
+	@Override
+	public boolean isBatchable() {
+		return false;
+	}
+
+	@Override
+	public Results execute(JdbcTemplate jdbcTemplate, SqlScriptExecutor sqlScriptExecutor, Configuration config) {
+		return jdbcTemplate.executeStatement(this.throttle.withRowsPerTransaction(getSql()));
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+/**
+ * Limits how long a statement may run, either on its own with the {@code timeout}
+ * directive, or together with all other statements of its migration with the
+ * {@code migration-timeout} directive in front of the first statement. They default to
+ * {@link Neo4jFlywayOptions#statementTimeout()} and
+ * {@link Neo4jFlywayOptions#migrationTimeout()}.
+ * <p>
+ * Giving up on the client leaves the transaction running on the server, holding its
+ * locks. On expiry, a watchdog therefore looks up the server transaction via the marker
+ * that {@link StatementMarkers} puts into the statement and terminates it, over a
+ * connection opened through Flyway's connection factory. If there is no such transaction,
+ * for example because the statement has been translated from SQL, the statement is
+ * cancelled on the client instead. The statement fails, Flyway records the migration as
+ * failed and releases the migration lock as usual.
+ *
+ * @author Michael J. Simons
+ */
+final class TimeoutStatement implements SqlStatement {
+
+	private static final Log LOG = LogFactory.getLog(TimeoutStatement.class);
+
+	private final Neo4jFlywayDatabase database;
+
+	private final SqlStatement statement;
+
+	private final Duration timeout;
+
+	private final MigrationTimeout migrationTimeout;
+
+	private final String marker = StatementMarkers.newMarker();
+
+	/**
+	 * Creates a new statement with a timeout.
+	 * @param database the database to open the connection of the watchdog with, might be
+	 * {@literal null}, in which case the statement can only be cancelled on the client
+	 * @param statement the statement to limit
+	 * @param timeout the timeout of the statement on its own, might be {@literal null}
+	 * @param migrationTimeout the timeout shared by all statements of the migration, might
+	 * be {@literal null}
+	 */
+	TimeoutStatement(Neo4jFlywayDatabase database, SqlStatement statement, Duration timeout,
+			MigrationTimeout migrationTimeout) {
+		this.database = database;
+		this.statement = statement;
+		this.timeout = timeout;
+		this.migrationTimeout = migrationTimeout;
+	}
+
+	SqlStatement getStatement() {
+		return this.statement;
+	}
+
+	@Override
+	public int getLineNumber() {
+		return this.statement.getLineNumber();
+	}
+
+	@Override
+	public String getSql() {
+		return this.statement.getSql();
+	}
+
+	@Override
+	public String getDelimiter() {
+		return this.statement.getDelimiter();
+	}
+
+	@Override
+	public boolean canExecuteInTransaction() {
+		return this.statement.canExecuteInTransaction();
+	}
+
+	@Override
+	public boolean isBatchable() {
+		return false;
+	}
+
+	@Override
+	public Results execute(JdbcTemplate jdbcTemplate, SqlScriptExecutor sqlScriptExecutor, Configuration config) {
+		var limit = this.timeout;
+		var description = "its timeout of " + this.timeout;
+		if (this.migrationTimeout != null) {
+			var remaining = this.migrationTimeout.remaining();
+			if (limit == null || remaining.compareTo(limit) < 0) {
+				limit = remaining;
+				description = "the timeout of its migration of " + this.migrationTimeout.timeout;
+			}
+		}
+		if (limit.isNegative() || limit.isZero()) {
+			var results = new Results();
+			results.setException(new SQLTimeoutException(
+					"Statement at line %d not started, its migration exceeded its timeout of %s"
+						.formatted(getLineNumber(), this.migrationTimeout.timeout)));
+			return results;
+		}
+
+		var watchdog = Watchdog.EXECUTOR.schedule(this::stop, limit.toNanos(), TimeUnit.NANOSECONDS);
+		var results = StatementMarkers.apply(this.marker,
+				() -> this.statement.execute(jdbcTemplate, sqlScriptExecutor, config));
+		if (!watchdog.cancel(false)) {
+			var stopped = await(watchdog);
+			if (stopped != null) {
+				var ex = new SQLTimeoutException(
+						"Statement at line %d exceeded %s, %s".formatted(getLineNumber(), description, stopped));
+				if (results.getException() != null) {
+					ex.initCause(results.getException());
+				}
+				results.setException(ex);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Stops the statement, preferably by terminating its server transaction.
+	 * @return how the statement has been stopped or {@literal null} if it couldn't be
+	 */
+	private String stop() {
+		if (this.database == null) {
+			return (StatementMarkers.cancel(this.marker) > 0) ? "cancelled it on the client" : null;
+		}
+		try (var connection = this.database.openConnection()) {
+			var transactionIds = ServerTransactions.terminate(connection, this.marker);
+			if (!transactionIds.isEmpty()) {
+				return "terminated transaction " + String.join(", ", transactionIds);
+			}
+			LOG.warn("Could not find a transaction running the statement at line %d, cancelling it on the client"
+				.formatted(getLineNumber()));
+		}
+		catch (SQLException | FlywayException ex) {
+			LOG.warn("Could not terminate the transaction of the statement at line %d, cancelling it on the client: %s"
+				.formatted(getLineNumber(), ex.getMessage()));
+		}
+		return (StatementMarkers.cancel(this.marker) > 0) ? "cancelled it on the client" : null;
+	}
+
+	private String await(Future<String> watchdog) {
+		try {
+			return watchdog.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (ExecutionException ex) {
+			LOG.warn("Could not stop the statement at line %d: %s".formatted(getLineNumber(),
+					ex.getCause().getMessage()));
+			return null;
+		}
+	}
+
+	/**
+	 * The timeout shared by all statements of a migration, starting with the first
+	 * statement executed.
+	 */
+	static final class MigrationTimeout {
+
+		private final Duration timeout;
+
+		private boolean started;
+
+		private long start;
+
+		MigrationTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+		synchronized Duration remaining() {
+			if (!this.started) {
+				this.started = true;
+				this.start = System.nanoTime();
+			}
+			return this.timeout.minusNanos(System.nanoTime() - this.start);
+		}
+
+	}
+
+	private static final class Watchdog {
+
+		private static final ScheduledThreadPoolExecutor EXECUTOR = create();
+
+		private static ScheduledThreadPoolExecutor create() {
+			var executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+				var thread = new Thread(runnable, "neo4j-flyway-watchdog");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			return executor;
+		}
+
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway.api;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import ac.simons.neo4j.flyway.ConnectionRegistry;
+import ac.simons.neo4j.flyway.Neo4jFlywayDatabaseType;
+
+/**
+ * A driver handing out connections from the {@link Neo4jFlywayRegistry}. Flyway opens
+ * connections on its own by instantiating the driver class of the database type, which
+ * is this one when the registry is enabled. It isn't registered with the
+ * {@link java.sql.DriverManager}.
+ *
+ * @author Michael J. Simons
+ */
+public final class Neo4jFlywayDriver implements Driver {
+
+	private static final Neo4jFlywayDatabaseType DATABASE_TYPE = new Neo4jFlywayDatabaseType();
+
+	/**
+	 * Needed for Flyway to instantiate this driver by name.
+	 */
+	public Neo4jFlywayDriver() {
+	}
+
+	@Override
+	public Connection connect(String url, Properties info) throws SQLException {
+		if (!acceptsURL(url)) {
+			return null;
+		}
+		return ConnectionRegistry.getInstance().getConnection(url, (info != null) ? info : new Properties());
+	}
+
+	@Override
+	public boolean acceptsURL(String url) {
+		return DATABASE_TYPE.handlesJDBCUrl(url);
+	}
+
+	@Override
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+		return ConnectionRegistry.getInstance().driver().getPropertyInfo(url, info);
+	}
+
+	@Override
+	public int getMajorVersion() {
+		return 1;
+	}
+
+	@Override
+	public int getMinorVersion() {
+		return 0;
+	}
+
+	@Override
+	public boolean jdbcCompliant() {
+		return false;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+}
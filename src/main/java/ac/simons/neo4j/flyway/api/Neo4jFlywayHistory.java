@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway.api;
+
+import ac.simons.neo4j.flyway.History;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+
+/**
+ * Maintenance operations on the schema history of Neo4j databases.
+ *
+ * @author Michael J. Simons
+ */
+public final class Neo4jFlywayHistory {
+
+	/**
+	 * The label that archived history entries get instead of {@code __Neo4jMigration}.
+	 */
+	public static final String ARCHIVE_LABEL = "__Neo4jMigrationArchive";
+
+	/**
+	 * Folds all successfully applied, versioned migrations up to and including the given
+	 * version into a single baseline entry. The folded entries are kept for auditing:
+	 * they are relabeled to {@link #ARCHIVE_LABEL}, stay connected among each other and
+	 * are reachable from the new baseline entry via {@code COMPACTS}. Their versions are
+	 * recorded in order on the baseline entry, including those of earlier compactions.
+	 * Their checksums stay on the archived entries only: Flyway doesn't validate
+	 * migrations below a baseline. Repeatable migrations are not folded, as Flyway would
+	 * apply them again otherwise.
+	 * <p>
+	 * This must not run concurrently to a migration. It uses the same lock as migrations
+	 * do, and fails if the history is locked.
+	 * @param configuration the Flyway configuration pointing to the database and history
+	 * @param version the version up to which the history is compacted, as applied
+	 * @return the number of archived entries
+	 * @throws FlywayException if there's no successful migration with that version or if
+	 * failed migrations come before it
+	 */
+	public static int compact(Configuration configuration, String version) {
+		return History.compact(configuration, version);
+	}
+
+	private Neo4jFlywayHistory() {
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway.api;
+
+/**
+ * Metrics of this plugin, available via JMX as
+ * {@code ac.simons.neo4j.flyway:type=Metrics}. All counters are process-wide and are
+ * never reset, the throttle reports the state after its latest batch.
+ *
+ * @author Michael J. Simons
+ */
+public interface Neo4jFlywayMetricsMXBean {
+
+	/**
+	 * {@return the number of times a statement of this plugin has been retried after a
+	 * transient failure}
+	 */
+	long getRetries();
+
+	/**
+	 * {@return the number of operations that succeeded after one or more retries}
+	 */
+	long getRecoveredOperations();
+
+	/**
+	 * {@return the number of operations that failed with a transient error after all
+	 * attempts have been used up}
+	 */
+	long getExhaustedOperations();
+
+	/**
+	 * {@return the number of indexes that were not online yet when a migration reached
+	 * its index barrier}
+	 */
+	long getAwaitedIndexes();
+
+	/**
+	 * {@return the number of server transactions terminated because a statement exceeded
+	 * its timeout or another statement of its parallel block failed}
+	 */
+	long getTerminatedTransactions();
+
+	/**
+	 * {@return the number of idle connections handed out again by the
+	 * {@link Neo4jFlywayRegistry}}
+	 */
+	long getReusedConnections();
+
+	/**
+	 * {@return the rate in rows per second of the latest throttled batch, including its
+	 * pause}
+	 */
+	double getThrottledRowsPerSecond();
+
+	/**
+	 * {@return the batch size the throttle currently allows}
+	 */
+	int getThrottledBatchSize();
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway.api;
+
+import ac.simons.neo4j.flyway.Preflight;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+
+/**
+ * An opt-in pre-flight check: Register this callback with Flyway, and before the first
+ * pending migration is applied, all statements of all pending Cypher (or SQL) migrations
+ * are run with {@code EXPLAIN} prepended, concurrently and without touching any data. If
+ * any of them fails to compile, the migration is aborted before anything has been
+ * applied, with the location of every failing statement. Planner notifications, for
+ * example about cartesian products or missing indexes, are logged as warnings, unless
+ * {@code neo4j.flyway.preflight.report-warnings} is {@literal false}.
+ * <p>
+ * Schema and administrative commands can't be explained and are skipped, as are
+ * non-script migrations.
+ *
+ * @author Michael J. Simons
+ */
+public final class Neo4jFlywayPreflight implements Callback {
+
+	private final Preflight delegate = new Preflight();
+
+	/**
+	 * Needed for Flyway to instantiate this callback by name.
+	 */
+	public Neo4jFlywayPreflight() {
+	}
+
+	@Override
+	public boolean supports(Event event, Context context) {
+		return this.delegate.supports(event, context);
+	}
+
+	@Override
+	public boolean canHandleInTransaction(Event event, Context context) {
+		return this.delegate.canHandleInTransaction(event, context);
+	}
+
+	@Override
+	public void handle(Event event, Context context) {
+		this.delegate.handle(event, context);
+	}
+
+	@Override
+	public String getCallbackName() {
+		return this.delegate.getCallbackName();
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway.api;
+
+import ac.simons.neo4j.flyway.ConnectionRegistry;
+
+/**
+ * An opt-in, process-wide registry of warm connections, enabled with
+ * {@code neo4j.flyway.registry.enabled}. Flyway opens a new connection for every command,
+ * and with it a new routing table, a new TLS handshake and a new authentication, and
+ * bootstraps the constraints of the schema history again. Tools running many commands in
+ * the same JVM, such as build plugins or tests, pay for that over and over.
+ * <p>
+ * With the registry enabled, Flyway connects through {@link Neo4jFlywayDriver}, and
+ * closed connections are kept idle for the next command with the same URL and connection
+ * properties, up to {@code neo4j.flyway.registry.max-idle} connections each. All idle
+ * connections are closed by a shutdown hook, or when {@link #close()} is called
+ * explicitly. Connections obtained after that are not kept anymore.
+ *
+ * @author Michael J. Simons
+ */
+public final class Neo4jFlywayRegistry implements AutoCloseable {
+
+	private static final Neo4jFlywayRegistry INSTANCE = new Neo4jFlywayRegistry();
+
+	/**
+	 * {@return the process-wide registry}
+	 */
+	public static Neo4jFlywayRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	private Neo4jFlywayRegistry() {
+	}
+
+	/**
+	 * Closes all idle connections and forgets about bootstrapped databases. Connections in
+	 * use are closed when they are returned.
+	 */
+	@Override
+	public void close() {
+		ConnectionRegistry.getInstance().close();
+	}
+
+}
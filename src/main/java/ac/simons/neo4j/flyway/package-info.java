@@ -14,6 +14,7 @@
  * limitations under the License.
  */
 /**
- * Contains all necessary classes to provide Flyway support for Neo4j.
+ * Contains all necessary classes to provide Flyway support for Neo4j. This package is
+ * not exported, the public entry points are in {@link ac.simons.neo4j.flyway.api}.
  */
 package ac.simons.neo4j.flyway;
@@ -17,10 +17,16 @@
 /**
  * Neo4j Flyway plugin.
  */
-@SuppressWarnings({"requires-automatic"})
+@SuppressWarnings({"requires-automatic", "requires-transitive-automatic"})
 module ac.simons.neo4j.flyway {
-	requires flyway.core;
-	requires java.sql;
+	requires static com.fasterxml.jackson.databind;
+	requires transitive flyway.core;
+	requires java.management;
+	requires transitive java.sql;
+
+	exports ac.simons.neo4j.flyway.api;
+
+	uses java.sql.Driver;
 
 	provides org.flywaydb.core.extensibility.Plugin with ac.simons.neo4j.flyway.Neo4jFlywayDatabaseType;
 }
\ No newline at end of file
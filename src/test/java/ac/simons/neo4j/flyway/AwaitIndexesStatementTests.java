@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AwaitIndexesStatementTests {
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', quoteCharacter = '^', textBlock = """
+			CREATE INDEX a FOR (n:A) ON (n.v)                                      | a
+			/*+ NEO4J FORCE_CYPHER */ CREATE INDEX a IF NOT EXISTS FOR (n:A) ON (n.v) | a
+			create text index `a b``c` for (n:A) on (n.v)                          | a b`c
+			CREATE CONSTRAINT a_unique FOR (n:A) REQUIRE n.v IS UNIQUE             | a_unique
+			CREATE INDEX FOR (n:A) ON (n.v)                                        |
+			CREATE INDEX IF NOT EXISTS FOR (n:A) ON (n.v)                          |
+			CREATE LOOKUP INDEX ON :A(v)                                           |
+			""")
+	void shouldExtractIndexNames(String statement, String expected) {
+		assertThat(AwaitIndexesStatement.indexName(statement).orElse(null)).isEqualTo(expected);
+	}
+
+}
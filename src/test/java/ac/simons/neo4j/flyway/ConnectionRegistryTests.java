@@ -0,0 +1,221 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ConnectionRegistryTests {
+
+	private static final String URL = "jdbc:neo4j://localhost:7687/neo4j";
+
+	@Test
+	void shouldReuseConnectionsPerUrlAndUser() throws SQLException {
+		var driver = new StandInDriver();
+		var registry = new ConnectionRegistry(2, driver::driver);
+		var reused = Neo4jFlywayMetrics.get().getReusedConnections();
+
+		registry.getConnection(URL, user("a")).close();
+		registry.getConnection(URL, user("a")).close();
+		registry.getConnection(URL, user("b")).close();
+
+		assertThat(driver.opened()).hasSize(2);
+		assertThat(Neo4jFlywayMetrics.get().getReusedConnections() - reused).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNotShareConnectionsAcrossPasswordsOrProperties() throws SQLException {
+		var driver = new StandInDriver();
+		var registry = new ConnectionRegistry(2, driver::driver);
+
+		registry.getConnection(URL, user("a", "secret")).close();
+		registry.getConnection(URL, user("a", "wrong")).close();
+		var withProperty = user("a", "secret");
+		withProperty.setProperty("enableSQLTranslation", "true");
+		registry.getConnection(URL, withProperty).close();
+		registry.getConnection(URL, user("a", "secret")).close();
+
+		assertThat(driver.opened()).hasSize(3);
+	}
+
+	@Test
+	void shouldTrackBootstrapStatePerUrlAndUser() {
+		var registry = new ConnectionRegistry(2, new StandInDriver()::driver);
+
+		registry.bootstrapped(URL, "a");
+
+		assertThat(registry.isBootstrapped(URL, "a")).isTrue();
+		assertThat(registry.isBootstrapped(URL, "b")).isFalse();
+	}
+
+	@Test
+	void shouldResetConnectionsWhenReturned() throws SQLException {
+		var driver = new StandInDriver();
+		var registry = new ConnectionRegistry(2, driver::driver);
+
+		var connection = registry.getConnection(URL, user("a"));
+		connection.setAutoCommit(false);
+		connection.setReadOnly(true);
+		connection.close();
+
+		var physical = driver.opened().get(0);
+		assertThat(physical.rolledBack).isTrue();
+		assertThat(physical.autoCommit).isTrue();
+		assertThat(physical.readOnly).isFalse();
+		assertThat(physical.closed).isFalse();
+		assertThat(connection.isClosed()).isTrue();
+		assertThatExceptionOfType(SQLException.class).isThrownBy(connection::createStatement);
+	}
+
+	@Test
+	void shouldDiscardInvalidConnections() throws SQLException {
+		var driver = new StandInDriver();
+		var registry = new ConnectionRegistry(2, driver::driver);
+
+		registry.getConnection(URL, user("a")).close();
+		driver.opened().get(0).valid = false;
+		registry.getConnection(URL, user("a")).close();
+
+		assertThat(driver.opened()).hasSize(2);
+		assertThat(driver.opened().get(0).closed).isTrue();
+	}
+
+	@Test
+	void shouldKeepAtMostMaxIdleConnections() throws SQLException {
+		var driver = new StandInDriver();
+		var registry = new ConnectionRegistry(1, driver::driver);
+
+		var first = registry.getConnection(URL, user("a"));
+		var second = registry.getConnection(URL, user("a"));
+		first.close();
+		second.close();
+
+		assertThat(driver.opened().get(0).closed).isFalse();
+		assertThat(driver.opened().get(1).closed).isTrue();
+	}
+
+	@Test
+	void shouldCloseEverythingOnClose() throws SQLException {
+		var driver = new StandInDriver();
+		var registry = new ConnectionRegistry(2, driver::driver);
+
+		var inUse = registry.getConnection(URL, user("a"));
+		registry.getConnection(URL, user("a")).close();
+		registry.bootstrapped(URL, "a");
+		assertThat(registry.isBootstrapped(URL, "a")).isTrue();
+
+		registry.close();
+		assertThat(driver.opened().get(1).closed).isTrue();
+		assertThat(registry.isBootstrapped(URL, "a")).isFalse();
+
+		inUse.close();
+		assertThat(driver.opened().get(0).closed).isTrue();
+
+		registry.getConnection(URL, user("a")).close();
+		assertThat(driver.opened()).hasSize(3);
+		assertThat(driver.opened().get(2).closed).isTrue();
+	}
+
+	private static Properties user(String name) {
+		var info = new Properties();
+		info.setProperty("user", name);
+		return info;
+	}
+
+	private static Properties user(String name, String password) {
+		var info = user(name);
+		info.setProperty("password", password);
+		return info;
+	}
+
+	/**
+	 * A driver handing out connections that only keep track of their state.
+	 */
+	private static final class StandInDriver {
+
+		private final List<StandInConnection> opened = new ArrayList<>();
+
+		Driver driver() {
+			return (Driver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Driver.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "connect" -> {
+							var connection = new StandInConnection();
+							this.opened.add(connection);
+							yield connection.connection();
+						}
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+		List<StandInConnection> opened() {
+			return this.opened;
+		}
+
+	}
+
+	private static final class StandInConnection {
+
+		private boolean autoCommit = true;
+
+		private boolean readOnly;
+
+		private boolean rolledBack;
+
+		private boolean closed;
+
+		private boolean valid = true;
+
+		Connection connection() {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getAutoCommit" -> this.autoCommit;
+						case "setAutoCommit" -> {
+							this.autoCommit = (boolean) args[0];
+							yield null;
+						}
+						case "isReadOnly" -> this.readOnly;
+						case "setReadOnly" -> {
+							this.readOnly = (boolean) args[0];
+							yield null;
+						}
+						case "rollback" -> {
+							this.rolledBack = true;
+							yield null;
+						}
+						case "isValid" -> this.valid;
+						case "isClosed" -> this.closed;
+						case "close" -> {
+							this.closed = true;
+							yield null;
+						}
+						case "clearWarnings" -> null;
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.api.ResourceProvider;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Neo4jFlywayParserTests {
+
+	private static final String MIGRATION = """
+			/*+ NEO4J FORCE_CYPHER */ UNWIND $rows AS row CREATE (:City {name: row.name});
+			/*+ NEO4J FORCE_CYPHER */ CREATE (:Person {id: 1});
+			/*+ NEO4J FORCE_CYPHER */ CREATE (:Person {id: 2});
+			/*+ NEO4J FORCE_CYPHER */ MATCH (n:Person) CALL (n) { SET n.seen = true } IN TRANSACTIONS;
+			""";
+
+	@AfterEach
+	void clearOptions() {
+		System.clearProperty("neo4j.flyway.throttle.enabled");
+		System.clearProperty("neo4j.flyway.coalesce-statements");
+	}
+
+	@Test
+	void batchedStatementsShouldShareTheThrottleOfTheirMigration() {
+		System.setProperty("neo4j.flyway.throttle.enabled", "true");
+		System.setProperty("neo4j.flyway.coalesce-statements", "true");
+
+		var statements = parse(MIGRATION);
+
+		assertThat(statements).hasExactlyElementsOfTypes(BulkLoadStatement.class, CoalescedStatement.class,
+				ThrottledStatement.class);
+		var throttle = ((BulkLoadStatement) statements.get(0)).getThrottle();
+		assertThat(throttle).isNotNull();
+		assertThat(((CoalescedStatement) statements.get(1)).getThrottle()).isSameAs(throttle);
+		assertThat(((ThrottledStatement) statements.get(2)).getThrottle()).isSameAs(throttle);
+	}
+
+	@Test
+	void eachMigrationShouldGetItsOwnThrottle() {
+		System.setProperty("neo4j.flyway.throttle.enabled", "true");
+
+		var first = (BulkLoadStatement) parse(MIGRATION).get(0);
+		var second = (BulkLoadStatement) parse(MIGRATION).get(0);
+
+		assertThat(first.getThrottle()).isNotNull().isNotSameAs(second.getThrottle());
+	}
+
+	@Test
+	void shouldNotThrottleByDefault() {
+		System.setProperty("neo4j.flyway.coalesce-statements", "true");
+
+		var statements = parse(MIGRATION);
+
+		assertThat(statements).hasSize(3).doesNotHaveAnyElementsOfTypes(ThrottledStatement.class);
+		assertThat(((BulkLoadStatement) statements.get(0)).getThrottle()).isNull();
+		assertThat(((CoalescedStatement) statements.get(1)).getThrottle()).isNull();
+	}
+
+	private static List<SqlStatement> parse(String migration) {
+		var script = new StandInResource("db/migration/V1__Seed.cypher", migration);
+		var provider = new StandInResourceProvider(
+				Map.of("db/migration/V1__Seed.csv", new StandInResource("db/migration/V1__Seed.csv", "name\nA\n")));
+		var parser = new Neo4jFlywayParser(new FluentConfiguration(), provider, new ParsingContext(), 10);
+		var result = new ArrayList<SqlStatement>();
+		try (var statements = parser.parse(script)) {
+			statements.forEachRemaining(result::add);
+		}
+		return result;
+	}
+
+	/**
+	 * A local stand-in for a resource on the classpath.
+	 */
+	private static final class StandInResource extends LoadableResource {
+
+		private final String relativePath;
+
+		private final String content;
+
+		StandInResource(String relativePath, String content) {
+			this.relativePath = relativePath;
+			this.content = content;
+		}
+
+		@Override
+		public Reader read() {
+			return new StringReader(this.content);
+		}
+
+		@Override
+		public String getAbsolutePath() {
+			return this.relativePath;
+		}
+
+		@Override
+		public String getAbsolutePathOnDisk() {
+			return null;
+		}
+
+		@Override
+		public String getFilename() {
+			return this.relativePath.substring(this.relativePath.lastIndexOf('/') + 1);
+		}
+
+		@Override
+		public String getRelativePath() {
+			return this.relativePath;
+		}
+
+	}
+
+	/**
+	 * A local stand-in for the resource provider of a migration.
+	 */
+	private record StandInResourceProvider(Map<String, LoadableResource> resources) implements ResourceProvider {
+
+		@Override
+		public LoadableResource getResource(String name) {
+			return this.resources.get(name);
+		}
+
+		@Override
+		public Collection<LoadableResource> getResources(String prefix, String... suffixes) {
+			return List.of();
+		}
+
+	}
+
+}
@@ -18,8 +18,13 @@ package ac.simons.neo4j.flyway;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
+import ac.simons.neo4j.flyway.api.Neo4jFlywayHistory;
+import ac.simons.neo4j.flyway.api.Neo4jFlywayPreflight;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
 import org.flywaydb.core.internal.exception.FlywayMigrateException;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -53,8 +58,15 @@ class Neo4jSupportIT {
 		try (var con = getConnection(false); var stmt = con.createStatement()) {
 			stmt.executeUpdate("DROP CONSTRAINT unique_version___Neo4jMigration IF EXISTS");
 			stmt.executeUpdate("DROP INDEX repeated_at__Neo4jMigration IF EXISTS");
+			stmt.executeUpdate("DROP INDEX repeated_installed_rank__Neo4jMigration IF EXISTS");
 			stmt.executeUpdate("DROP CONSTRAINT __Neo4jMigrationsLock__has_unique_id IF EXISTS");
 			stmt.executeUpdate("DROP CONSTRAINT __Neo4jMigrationsLock__has_unique_name IF EXISTS");
+			stmt.executeUpdate("DROP INDEX installed_rank__Neo4jMigration IF EXISTS");
+			stmt.executeUpdate("DROP INDEX description__Neo4jMigration IF EXISTS");
+			stmt.executeUpdate("DROP INDEX v05_a IF EXISTS");
+			stmt.executeUpdate("DROP INDEX v05_b IF EXISTS");
+			stmt.executeUpdate("DROP INDEX v05_unrelated IF EXISTS");
+			stmt.executeUpdate("DROP INDEX v07_person_id IF EXISTS");
 			stmt.executeUpdate("MATCH (n) DETACH DELETE n");
 		}
 	}
@@ -230,6 +242,254 @@ class Neo4jSupportIT {
 		assertCount(enableSQLTranslation, "/*+ NEO4J FORCE_CYPHER */ MATCH (n:A|B) RETURN count(n) AS cnt", 0);
 	}
 
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldWaitForIndexes(boolean enableSQLTranslation) throws SQLException {
+		var flyway = Flyway.configure()
+			.sqlMigrationSuffixes(".sql", ".cypher")
+			.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+			.locations("migrations005")
+			.load();
+
+		// An unrelated index, still populating or even failed, must not affect the migration
+		try (var connection = getConnection(false); var stmt = connection.createStatement()) {
+			stmt.execute("UNWIND range(1, 100000) AS i CREATE (:V05__Unrelated {c: i})");
+			stmt.execute("CREATE INDEX v05_unrelated IF NOT EXISTS FOR (n:V05__Unrelated) ON (n.c)");
+		}
+		var awaited = Neo4jFlywayMetrics.get().getAwaitedIndexes();
+
+		flyway.migrate();
+		// At least one of the migration's indexes has been observed while populating, the
+		// unrelated one not at all
+		assertThat(Neo4jFlywayMetrics.get().getAwaitedIndexes() - awaited).isBetween(1, 2);
+		assertCount(enableSQLTranslation, "/*+ NEO4J FORCE_CYPHER */ MATCH (n:V05__Checked) RETURN count(n) AS cnt", 1);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ SHOW INDEXES YIELD name, state WHERE name IN ['v05_a', 'v05_b'] AND state = 'ONLINE' RETURN count(*) AS cnt",
+				2);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldFailPreflight(boolean enableSQLTranslation) throws SQLException {
+		var flyway = Flyway.configure()
+			.sqlMigrationSuffixes(".sql", ".cypher")
+			.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+			.locations("migrations000", "migrations004")
+			.callbacks(new Neo4jFlywayPreflight())
+			.load();
+
+		assertThatExceptionOfType(FlywayException.class).isThrownBy(flyway::migrate)
+			.withMessageContaining("V04__Broken.cypher (line 1");
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:V01__ThisIsABaseline|V02__Next) RETURN count(n) AS cnt", 0);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldCompactHistory(boolean enableSQLTranslation) throws SQLException {
+		var flyway = Flyway.configure()
+			.sqlMigrationSuffixes(".sql", ".cypher")
+			.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+			.locations("migrations000", "migrations003")
+			.load();
+
+		flyway.migrate();
+		assertThat(Neo4jFlywayHistory.compact(flyway.getConfiguration(), "02")).isEqualTo(3);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:__Neo4jMigration:flyway_schema_history) RETURN count(n) AS cnt", 2);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:__Neo4jMigrationArchive:flyway_schema_history) RETURN count(n) AS cnt",
+				3);
+
+		flyway.migrate();
+		assertThat(flyway.validateWithResult().validationSuccessful).isTrue();
+		var info = flyway.info().getInfoResult();
+		assertThat(info.schemaVersion).isEqualTo("03");
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:V01__ThisIsABaseline|V02__Next|V03__Third) RETURN count(n) AS cnt",
+				3);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldRecordRepeatedMigrations(boolean enableSQLTranslation) throws SQLException {
+		Flyway flyway = null;
+		for (var location : new String[] { "migrations006a", "migrations006b", "migrations006c", "migrations006c" }) {
+			flyway = Flyway.configure()
+				.sqlMigrationSuffixes(".sql", ".cypher")
+				.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+				.locations(location)
+				.load();
+			flyway.migrate();
+		}
+
+		assertThat(flyway.validateWithResult().validationSuccessful).isTrue();
+		assertThat(flyway.info().pending()).isEmpty();
+
+		assertCount(enableSQLTranslation, "/*+ NEO4J FORCE_CYPHER */ MATCH (n:R__Repeatable) RETURN n.runs AS cnt", 3);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:__Neo4jMigration {description: 'Repeatable'}) RETURN count(n) AS cnt",
+				1);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:__Neo4jMigration)-[r:REPEATED]->(n) RETURN count(r) AS cnt", 2);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void coalescedStatementsShouldBeEquivalent(boolean enableSQLTranslation) throws SQLException {
+		var flyway = Flyway.configure()
+			.sqlMigrationSuffixes(".sql", ".cypher")
+			.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+			.locations("migrations007");
+
+		flyway.load().migrate();
+		var expected = snapshotV07(enableSQLTranslation);
+		assertThat(expected).hasSize(37).contains("V07__City name=City 1 visits=2");
+
+		prepareData();
+		System.setProperty("neo4j.flyway.coalesce-statements", "true");
+		System.setProperty("neo4j.flyway.coalesce-batch-size", "4");
+		try {
+			flyway.load().migrate();
+		}
+		finally {
+			System.clearProperty("neo4j.flyway.coalesce-statements");
+			System.clearProperty("neo4j.flyway.coalesce-batch-size");
+		}
+		assertThat(snapshotV07(enableSQLTranslation)).containsExactlyElementsOf(expected);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldBulkLoadRows(boolean enableSQLTranslation) throws SQLException {
+		var flyway = Flyway.configure()
+			.sqlMigrationSuffixes(".sql", ".cypher")
+			.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+			.locations("migrations008");
+
+		System.setProperty("neo4j.flyway.bulk-load.batch-size", "2");
+		try {
+			flyway.target("09").load().migrate();
+		}
+		finally {
+			System.clearProperty("neo4j.flyway.bulk-load.batch-size");
+		}
+		assertCount(enableSQLTranslation, "/*+ NEO4J FORCE_CYPHER */ MATCH (n:V08__Person) RETURN count(n) AS cnt", 5);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:V08__Person {id: 3, name: 'Carol \"C\"'}) WHERE n.city IS NULL RETURN count(n) AS cnt",
+				1);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:V08__Person {city: 'Aachen, Germany'}) RETURN count(n) AS cnt", 1);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:V09__City) WHERE n.population > 0 RETURN count(n) AS cnt", 3);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:V09__City {name: 'Köln'}) WHERE n.lat = 50.94 RETURN count(n) AS cnt",
+				1);
+
+		assertThatExceptionOfType(FlywayException.class).isThrownBy(() -> flyway.target("latest").load().migrate())
+			.withMessageContaining("Checksum mismatch for cities.jsonl");
+		assertCount(enableSQLTranslation, "/*+ NEO4J FORCE_CYPHER */ MATCH (n:V10__Broken) RETURN count(n) AS cnt", 0);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldTerminateRunawayStatements(boolean enableSQLTranslation) throws SQLException {
+		var flyway = Flyway.configure()
+			.sqlMigrationSuffixes(".sql", ".cypher")
+			.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+			.locations("migrations009")
+			.load();
+
+		assertThatExceptionOfType(FlywayException.class).isThrownBy(flyway::migrate)
+			.withMessageContaining("exceeded its timeout of PT1S");
+
+		var info = flyway.info().getInfoResult();
+		assertThat(info.migrations).hasSize(2);
+		assertThat(info.migrations.get(0).state).isEqualTo("Success");
+		assertThat(info.migrations.get(1).state).isEqualTo("Failed");
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:__Neo4jMigrationsLock) RETURN count(n) AS cnt", 0);
+		assertCount(enableSQLTranslation, """
+				/*+ NEO4J FORCE_CYPHER */
+				SHOW TRANSACTIONS YIELD currentQuery
+				WHERE currentQuery CONTAINS 'V12__' + 'Never'
+				RETURN count(*) AS cnt""", 0);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldRunParallelBlocks(boolean enableSQLTranslation) throws SQLException {
+		var flyway = Flyway.configure()
+			.sqlMigrationSuffixes(".sql", ".cypher")
+			.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+			.locations("migrations010");
+
+		flyway.target("13").load().migrate();
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ MATCH (n:V13__Order|V13__Invoice) WHERE n.done RETURN count(n) AS cnt", 3);
+
+		assertThatExceptionOfType(FlywayException.class).isThrownBy(() -> flyway.target("latest").load().migrate())
+			.withMessageContaining("Statement at line 7 of the parallel block failed");
+		assertThat(flyway.load().info().getInfoResult().migrations.get(1).state).isEqualTo("Failed");
+		assertCount(enableSQLTranslation, """
+				/*+ NEO4J FORCE_CYPHER */
+				SHOW TRANSACTIONS YIELD currentQuery, status
+				WHERE currentQuery CONTAINS 'V14__' + 'Never' AND NOT status STARTS WITH 'Terminated'
+				RETURN count(*) AS cnt""", 0);
+		assertCount(enableSQLTranslation, "/*+ NEO4J FORCE_CYPHER */ MATCH (n:V14__Never) RETURN count(n) AS cnt", 0);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void shouldReuseWarmConnections(boolean enableSQLTranslation) throws SQLException {
+		var reused = Neo4jFlywayMetrics.get().getReusedConnections();
+
+		System.setProperty("neo4j.flyway.registry.enabled", "true");
+		try {
+			var flyway = Flyway.configure()
+				.sqlMigrationSuffixes(".sql", ".cypher")
+				.dataSource(getUrl(enableSQLTranslation), getUsername(), getPassword())
+				.locations("migrations000")
+				.load();
+
+			assertThat(flyway.info().pending()).hasSize(2);
+			flyway.migrate();
+			flyway.validate();
+
+			var info = flyway.info().getInfoResult();
+			assertThat(info.schemaVersion).isEqualTo("02");
+		}
+		finally {
+			System.clearProperty("neo4j.flyway.registry.enabled");
+		}
+		assertThat(Neo4jFlywayMetrics.get().getReusedConnections()).isGreaterThan(reused);
+		assertCount(enableSQLTranslation,
+				"/*+ NEO4J FORCE_CYPHER */ SHOW CONSTRAINTS YIELD name WHERE name CONTAINS '__Neo4jMigration' RETURN count(*) AS cnt",
+				3);
+	}
+
+	List<String> snapshotV07(boolean enableSQLTranslation) throws SQLException {
+		var result = new ArrayList<String>();
+		try (var connection = getConnection(enableSQLTranslation);
+				var stmt = connection.createStatement();
+				var rs = stmt.executeQuery("""
+						/*+ NEO4J FORCE_CYPHER */
+						MATCH (n) WHERE any(l IN labels(n) WHERE l STARTS WITH 'V07__')
+						OPTIONAL MATCH (n)-[r]->(m)
+						WITH n, r, m, COLLECT {
+							UNWIND keys(n) AS k WITH k ORDER BY k RETURN k + '=' + toString(n[k])
+						} AS properties
+						RETURN labels(n)[0] + reduce(s = '', p IN properties | s + ' ' + p)
+							+ coalesce(' -' + type(r) + '-> ' + m.name, '') AS row
+						ORDER BY row
+						""")) {
+			while (rs.next()) {
+				result.add(rs.getString("row"));
+			}
+		}
+		return result;
+	}
+
 	void assertCount(boolean enableSQLTranslation, String query, long expected) throws SQLException {
 		try (var connection = getConnection(enableSQLTranslation);
 				var stmt = connection.createStatement();
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.api.callback.Warning;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Result;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.jdbc.WarningImpl;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelStatementTests {
+
+	@Test
+	void shouldRunStatementsOnConnectionsOfTheirOwnAndReturnTheirResults() {
+		var standIn = new CountingDataSource();
+		var dataSource = standIn.dataSource();
+		var configuration = new FluentConfiguration().dataSource(dataSource);
+		var connectionFactory = new JdbcConnectionFactory(dataSource, configuration, null);
+		var database = (Neo4jFlywayDatabase) connectionFactory.getDatabaseType()
+			.createDatabase(configuration, connectionFactory, null);
+		var opened = standIn.opened.get();
+		var closed = standIn.closed.get();
+		var connections = new ConcurrentLinkedQueue<Connection>();
+
+		var statement = new ParallelStatement(database,
+				List.of(statement("MATCH (n:A) SET n.done = true", connections),
+						statement("MATCH (n:B) SET n.done = true", connections)),
+				2);
+		var results = statement.execute(null, null, configuration);
+
+		assertThat((Throwable) results.getException()).isNull();
+		assertThat(results.getResults()).extracting(Result::sql)
+			.containsExactly("MATCH (n:A) SET n.done = true", "MATCH (n:B) SET n.done = true");
+		assertThat(results.getWarnings()).extracting(Warning::getMessage)
+			.containsExactly("MATCH (n:A) SET n.done = true", "MATCH (n:B) SET n.done = true");
+		assertThat(connections).hasSize(2);
+		assertThat(connections.poll()).isNotSameAs(connections.poll());
+		assertThat(standIn.opened.get() - opened).isEqualTo(2);
+		assertThat(standIn.closed.get() - closed).isEqualTo(2);
+	}
+
+	@Test
+	void shouldRequireADatabase() {
+		var statement = new ParallelStatement(null, List.of(statement("RETURN 1", new ConcurrentLinkedQueue<>())), 1);
+
+		var results = statement.execute(null, null, new FluentConfiguration());
+
+		assertThat((Throwable) results.getException()).isNotNull()
+			.hasMessage("Parallel blocks can only be run as part of a migration");
+	}
+
+	private static SqlStatement statement(String sql, Queue<Connection> connections) {
+		return (SqlStatement) Proxy.newProxyInstance(ParallelStatementTests.class.getClassLoader(),
+				new Class<?>[] { SqlStatement.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "getSql" -> sql;
+					case "getLineNumber" -> 1;
+					case "execute" -> {
+						connections.add(((JdbcTemplate) args[0]).getConnection());
+						var results = new Results();
+						results.addResult(new Result(1, List.of(), List.of(), sql));
+						results.addWarning(new WarningImpl(0, null, sql));
+						yield results;
+					}
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	/**
+	 * A local stand-in for Neo4j as seen through a data source, counting the connections
+	 * opened and closed. Statements succeed, queries return no rows.
+	 */
+	private static final class CountingDataSource {
+
+		private final AtomicInteger opened = new AtomicInteger();
+
+		private final AtomicInteger closed = new AtomicInteger();
+
+		DataSource dataSource() {
+			return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DataSource.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getConnection" -> connection();
+						default -> defaultValue(method.getReturnType());
+					});
+		}
+
+		private Connection connection() {
+			this.opened.incrementAndGet();
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getMetaData" -> metaData((Connection) proxy);
+						case "getAutoCommit" -> true;
+						case "getSchema" -> "public";
+						case "createStatement", "prepareStatement" -> statement();
+						case "close" -> {
+							this.closed.incrementAndGet();
+							yield null;
+						}
+						default -> defaultValue(method.getReturnType());
+					});
+		}
+
+		private static DatabaseMetaData metaData(Connection connection) {
+			return (DatabaseMetaData) Proxy.newProxyInstance(ParallelStatementTests.class.getClassLoader(),
+					new Class<?>[] { DatabaseMetaData.class }, (proxy, method, args) -> switch (method.getName()) {
+						case "getConnection" -> connection;
+						case "getURL" -> "jdbc:neo4j://localhost:7687";
+						case "getDatabaseProductName" -> "Neo4j Kernel-enterprise-5.26.0";
+						case "getDatabaseProductVersion", "getDriverVersion" -> "5.26.0";
+						case "getDatabaseMajorVersion" -> 5;
+						case "getDatabaseMinorVersion" -> 26;
+						case "getDriverName" -> "Neo4j JDBC Driver";
+						case "getUserName" -> "neo4j";
+						default -> defaultValue(method.getReturnType());
+					});
+		}
+
+		private static PreparedStatement statement() {
+			return (PreparedStatement) Proxy.newProxyInstance(ParallelStatementTests.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> switch (method.getName()) {
+						case "executeQuery" -> Proxy.newProxyInstance(ParallelStatementTests.class.getClassLoader(),
+								new Class<?>[] { ResultSet.class },
+								(resultSet, resultSetMethod, resultSetArgs) -> defaultValue(
+										resultSetMethod.getReturnType()));
+						default -> defaultValue(method.getReturnType());
+					});
+		}
+
+		private static Object defaultValue(Class<?> type) {
+			if (type == boolean.class) {
+				return false;
+			}
+			if (type == int.class) {
+				return 0;
+			}
+			if (type == long.class) {
+				return 0L;
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreflightTests {
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', quoteCharacter = '^', textBlock = """
+			MATCH (n) RETURN n                              | EXPLAIN MATCH (n) RETURN n
+			CYPHER 5 MATCH (n) RETURN n                     | CYPHER 5 EXPLAIN MATCH (n) RETURN n
+			cypher runtime=slotted MATCH (n) RETURN n       | cypher runtime=slotted EXPLAIN MATCH (n) RETURN n
+			CYPHER 25 planner=cost MATCH (n) RETURN n       | CYPHER 25 planner=cost EXPLAIN MATCH (n) RETURN n
+			USE movies MATCH (n) RETURN n                   | EXPLAIN USE movies MATCH (n) RETURN n
+			CYPHER 5 USE movies MATCH (n) RETURN n          | CYPHER 5 EXPLAIN USE movies MATCH (n) RETURN n
+			""")
+	void shouldInsertExplainAfterPreParserOptions(String query, String expected) {
+		assertThat(Preflight.explain(query)).isEqualTo(expected);
+	}
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', quoteCharacter = '^', textBlock = """
+			MATCH (n) RETURN n                                        | true
+			CYPHER 5 MATCH (n) RETURN n                               | true
+			USE movies CREATE (n:Movie)                               | true
+			USE graph.byName('movies') CREATE (n:Movie)               | true
+			CREATE DATABASE foo                                       | false
+			USE system CREATE DATABASE foo                            | false
+			USE `system` SHOW DATABASES                               | false
+			CYPHER 5 USE system CREATE USER bar SET PASSWORD 'x'      | false
+			CYPHER 5 EXPLAIN MATCH (n) RETURN n                       | false
+			USE movies CREATE INDEX a FOR (n:A) ON (n.v)              | false
+			""")
+	void shouldSkipCommandsAfterUseClauses(String query, boolean expected) {
+		assertThat(Preflight.isExplainable(query)).isEqualTo(expected);
+	}
+
+}
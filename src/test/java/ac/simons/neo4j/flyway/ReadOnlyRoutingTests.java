@@ -0,0 +1,140 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadOnlyRoutingTests {
+
+	private static final String READ = "/*+ NEO4J FORCE_CYPHER */ " + ReadOnlyRouting.HINT + " MATCH (n) RETURN n";
+
+	private static final String WRITE = "/*+ NEO4J FORCE_CYPHER */ CREATE (n)";
+
+	@Test
+	void shouldBeReadOnlyOnlyWhileExecuting() throws SQLException {
+		var standIn = new StandInConnection(true);
+		var connection = ReadOnlyRouting.wrap(standIn.connection());
+
+		try (var read = connection.prepareStatement(READ)) {
+			assertThat(standIn.readOnly).isFalse();
+			try (var write = connection.prepareStatement(WRITE)) {
+				write.executeUpdate();
+			}
+			try (var rs = read.executeQuery()) {
+				assertThat(rs.next()).isFalse();
+				assertThat(standIn.readOnly).isTrue();
+			}
+			assertThat(standIn.readOnly).isFalse();
+			try (var write = connection.prepareStatement(WRITE)) {
+				write.executeUpdate();
+			}
+		}
+
+		assertThat(standIn.executions).containsExactly("false: " + WRITE, "true: " + READ, "false: " + WRITE);
+	}
+
+	@Test
+	void shouldRestoreStateWhenStatementIsClosedBeforeResultSet() throws SQLException {
+		var standIn = new StandInConnection(true);
+		var connection = ReadOnlyRouting.wrap(standIn.connection());
+
+		var read = connection.prepareStatement(READ);
+		read.executeQuery();
+		assertThat(standIn.readOnly).isTrue();
+		read.close();
+		assertThat(standIn.readOnly).isFalse();
+	}
+
+	@Test
+	void shouldNotTouchTransactions() throws SQLException {
+		var standIn = new StandInConnection(false);
+		var connection = ReadOnlyRouting.wrap(standIn.connection());
+
+		try (var read = connection.prepareStatement(READ); var rs = read.executeQuery()) {
+			assertThat(standIn.readOnly).isFalse();
+		}
+
+		assertThat(standIn.executions).containsExactly("false: " + READ);
+	}
+
+	/**
+	 * A local stand-in for a connection, recording whether it was read-only when a
+	 * statement was executed.
+	 */
+	private static final class StandInConnection {
+
+		private final boolean autoCommit;
+
+		private final List<String> executions = new ArrayList<>();
+
+		private boolean readOnly;
+
+		StandInConnection(boolean autoCommit) {
+			this.autoCommit = autoCommit;
+		}
+
+		Connection connection() {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getAutoCommit" -> this.autoCommit;
+						case "isReadOnly" -> this.readOnly;
+						case "setReadOnly" -> {
+							this.readOnly = (boolean) args[0];
+							yield null;
+						}
+						case "prepareStatement" -> statement((String) args[0]);
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+		private PreparedStatement statement(String sql) {
+			return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> switch (method.getName()) {
+						case "executeQuery" -> {
+							this.executions.add(this.readOnly + ": " + sql);
+							yield resultSet();
+						}
+						case "executeUpdate" -> {
+							this.executions.add(this.readOnly + ": " + sql);
+							yield 1;
+						}
+						case "close" -> null;
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+		private ResultSet resultSet() {
+			return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "next" -> false;
+						case "close" -> null;
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+	}
+
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.jdbc.ExecutionTemplateFactory;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class RetryTests {
+
+	private static final Retry.Policy POLICY = new Retry.Policy(4, Duration.ofMillis(1), Duration.ofMillis(5));
+
+	@Test
+	void shouldRecoverFromTransientFailures() throws SQLException {
+		var standIn = new FaultInjectingConnection(2, true);
+		var metrics = Neo4jFlywayMetrics.get();
+		var retries = metrics.getRetries();
+		var recovered = metrics.getRecoveredOperations();
+
+		var result = Retry.call(POLICY, standIn.connection(), "test", standIn::execute);
+
+		assertThat(result).isTrue();
+		assertThat(standIn.attempts()).isEqualTo(3);
+		assertThat(metrics.getRetries() - retries).isEqualTo(2);
+		assertThat(metrics.getRecoveredOperations() - recovered).isEqualTo(1);
+	}
+
+	@Test
+	void shouldGiveUpAfterMaxAttempts() {
+		var standIn = new FaultInjectingConnection(Integer.MAX_VALUE, true);
+		var metrics = Neo4jFlywayMetrics.get();
+		var exhausted = metrics.getExhaustedOperations();
+
+		assertThatExceptionOfType(SQLTransientConnectionException.class)
+			.isThrownBy(() -> Retry.call(POLICY, standIn.connection(), "test", standIn::execute));
+		assertThat(standIn.attempts()).isEqualTo(4);
+		assertThat(metrics.getExhaustedOperations() - exhausted).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNotRetryInsideTransactions() {
+		var standIn = new FaultInjectingConnection(1, false);
+
+		assertThatExceptionOfType(SQLTransientConnectionException.class)
+			.isThrownBy(() -> Retry.call(POLICY, standIn.connection(), "test", standIn::execute));
+		assertThat(standIn.attempts()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNotRetryPermanentFailures() {
+		var attempts = new AtomicInteger();
+		var standIn = new FaultInjectingConnection(0, true);
+
+		assertThatExceptionOfType(SQLSyntaxErrorException.class)
+			.isThrownBy(() -> Retry.call(POLICY, standIn.connection(), "test", () -> {
+				attempts.incrementAndGet();
+				throw new SQLSyntaxErrorException("Neo.ClientError.Statement.SyntaxError");
+			}));
+		assertThat(attempts).hasValue(1);
+	}
+
+	@ParameterizedTest
+	@CsvSource(textBlock = """
+			Neo.TransientError.Transaction.DeadlockDetected, true
+			Neo.ClientError.Cluster.NotALeader, true
+			Neo.ClientError.General.ForbiddenOnReadOnlyDatabase, false
+			Neo.ClientError.Schema.ConstraintValidationFailed, false
+			""")
+	void shouldClassifyNeo4jErrorCodes(String code, boolean expected) {
+		assertThat(Retry.isTransient(new SQLException("Wrapped", new IllegalStateException(code + ": Oops"))))
+			.isEqualTo(expected);
+	}
+
+	@Test
+	void shouldRetryBootstrap() {
+		var standIn = new FlakyDataSource("CREATE CONSTRAINT unique_version___Neo4jMigration");
+
+		standIn.database();
+		assertThat(standIn.attempts()).isEqualTo(2);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "MATCH (n) WHERE any(l IN labels(n)", "SHOW TRANSACTIONS",
+			"MERGE (l:__Neo4jMigrationsLock", "MATCH (l:__Neo4jMigrationsLock" })
+	void shouldRetryTableOperations(String statement) {
+		var standIn = new FlakyDataSource(statement);
+		var table = standIn.database().getMainConnection().getSchema("public").getTable("flyway_schema_history");
+
+		assertThat(table.exists()).isTrue();
+		table.lock();
+		table.unlock();
+		assertThat(standIn.attempts()).isGreaterThanOrEqualTo(2);
+		assertThat(standIn.failures()).isEqualTo(1);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "SHOW TRANSACTIONS", "MERGE (l:__Neo4jMigrationsLock", "MATCH (l:__Neo4jMigrationsLock" })
+	void shouldRetryTransactionsLockingTheTable(String statement) {
+		var standIn = new FlakyDataSource(statement);
+		var database = standIn.database();
+		var connection = database.getMainConnection();
+		var table = connection.getSchema("public").getTable("flyway_schema_history");
+		var runs = new AtomicInteger();
+
+		var result = ExecutionTemplateFactory
+			.createTableExclusiveExecutionTemplate(connection.getJdbcConnection(), table, database)
+			.execute(runs::incrementAndGet);
+
+		assertThat(standIn.failures()).isEqualTo(1);
+		assertThat(result).isEqualTo(runs.get());
+		assertThat(runs).hasValueBetween(1, 2);
+	}
+
+	@Test
+	void backoffShouldBeBoundedAndJittered() {
+		var policy = new Retry.Policy(10, Duration.ofMillis(100), Duration.ofMillis(1000));
+		for (int attempt = 1; attempt <= 10; ++attempt) {
+			var cap = Math.min(1000, 100L << (attempt - 1));
+			assertThat(policy.backoff(attempt).toMillis()).isBetween(cap / 2, cap);
+		}
+	}
+
+	/**
+	 * A local stand-in for Neo4j as seen by Flyway through a data source: The first
+	 * execution of a statement containing the given fragment fails with a transient
+	 * error, everything else succeeds and queries return a single row.
+	 */
+	private static final class FlakyDataSource {
+
+		private final String fragment;
+
+		private final AtomicInteger attempts = new AtomicInteger();
+
+		private final AtomicInteger failures = new AtomicInteger();
+
+		FlakyDataSource(String fragment) {
+			this.fragment = fragment;
+		}
+
+		Neo4jFlywayDatabase database() {
+			var dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { DataSource.class }, (proxy, method, args) -> switch (method.getName()) {
+						case "getConnection" -> connection();
+						default -> defaultValue(method.getReturnType());
+					});
+			var configuration = new FluentConfiguration().dataSource(dataSource);
+			var connectionFactory = new JdbcConnectionFactory(dataSource, configuration, null);
+			return (Neo4jFlywayDatabase) connectionFactory.getDatabaseType()
+				.createDatabase(configuration, connectionFactory, null);
+		}
+
+		private Connection connection() {
+			var autoCommit = new AtomicBoolean(true);
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getMetaData" -> metaData((Connection) proxy);
+						case "getAutoCommit" -> autoCommit.get();
+						case "setAutoCommit" -> {
+							autoCommit.set((boolean) args[0]);
+							yield null;
+						}
+						case "getSchema" -> "public";
+						case "createStatement" -> statement(null);
+						case "prepareStatement" -> statement((String) args[0]);
+						default -> defaultValue(method.getReturnType());
+					});
+		}
+
+		private DatabaseMetaData metaData(Connection connection) {
+			return (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { DatabaseMetaData.class }, (proxy, method, args) -> switch (method.getName()) {
+						case "getConnection" -> connection;
+						case "getURL" -> "jdbc:neo4j://localhost:7687";
+						case "getDatabaseProductName" -> "Neo4j Kernel-enterprise-5.26.0";
+						case "getDatabaseProductVersion", "getDriverVersion" -> "5.26.0";
+						case "getDatabaseMajorVersion" -> 5;
+						case "getDatabaseMinorVersion" -> 26;
+						case "getDriverName" -> "Neo4j JDBC Driver";
+						case "getUserName" -> "neo4j";
+						default -> defaultValue(method.getReturnType());
+					});
+		}
+
+		private PreparedStatement statement(String preparedSql) {
+			return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+						if (!method.getName().startsWith("execute")) {
+							return defaultValue(method.getReturnType());
+						}
+						var sql = (args != null && args.length > 0 && args[0] instanceof String s) ? s : preparedSql;
+						if (sql.contains(this.fragment) && this.attempts.incrementAndGet() == 1) {
+							this.failures.incrementAndGet();
+							throw new SQLTransientConnectionException(
+									"Neo.ClientError.Cluster.NotALeader: No write operations are allowed");
+						}
+						return switch (method.getName()) {
+							case "executeQuery" -> resultSet();
+							case "execute" -> false;
+							default -> defaultValue(method.getReturnType());
+						};
+					});
+		}
+
+		private ResultSet resultSet() {
+			var rows = new AtomicInteger(1);
+			return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "next" -> rows.getAndDecrement() > 0;
+						case "getBoolean" -> true;
+						case "getString", "getObject" -> "transaction-1";
+						default -> defaultValue(method.getReturnType());
+					});
+		}
+
+		private static Object defaultValue(Class<?> type) {
+			if (type == boolean.class) {
+				return false;
+			}
+			if (type == int.class) {
+				return 0;
+			}
+			if (type == long.class) {
+				return 0L;
+			}
+			return null;
+		}
+
+		int attempts() {
+			return this.attempts.get();
+		}
+
+		int failures() {
+			return this.failures.get();
+		}
+
+	}
+
+	/**
+	 * A local stand-in for a connection to a cluster in the middle of a leader election:
+	 * The first statements fail with a transient error, the following ones succeed.
+	 */
+	private static final class FaultInjectingConnection {
+
+		private final int failures;
+
+		private final boolean autoCommit;
+
+		private final AtomicInteger attempts = new AtomicInteger();
+
+		FaultInjectingConnection(int failures, boolean autoCommit) {
+			this.failures = failures;
+			this.autoCommit = autoCommit;
+		}
+
+		Connection connection() {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getAutoCommit" -> this.autoCommit;
+						case "createStatement" -> statement();
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+		private Statement statement() {
+			return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "execute" -> {
+							if (this.attempts.incrementAndGet() <= this.failures) {
+								throw new SQLTransientConnectionException(
+										"Neo.ClientError.Cluster.NotALeader: No write operations are allowed");
+							}
+							yield true;
+						}
+						case "close" -> null;
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+		boolean execute() throws SQLException {
+			try (var stmt = connection().createStatement()) {
+				return stmt.execute("CREATE INDEX foo IF NOT EXISTS FOR (n:Foo) ON (n.bar)");
+			}
+		}
+
+		int attempts() {
+			return this.attempts.get();
+		}
+
+	}
+
+}
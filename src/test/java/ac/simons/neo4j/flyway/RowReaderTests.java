@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class RowReaderTests {
+
+	@Test
+	void shouldReadCsv() throws IOException {
+		var rows = readAll("test.csv", """
+				\uFEFFid, name,note
+				1,Alice,"multi
+				line, with ""quotes"\""
+
+				2,,""
+				3,Bob
+				""");
+
+		assertThat(rows).containsExactly(row("id", "1", "name", "Alice", "note", "multi\nline, with \"quotes\""),
+				row("id", "2", "name", null, "note", ""), row("id", "3", "name", "Bob", "note", null));
+	}
+
+	@Test
+	void shouldReadJsonLines() throws IOException {
+		var rows = readAll("test.jsonl", """
+				{"id": 1, "tags": ["a", "b"], "geo": {"lat": 1.5e1, "ok": true, "n": null}}
+
+				{"s": "\\u00e4\\n\\"", "d": -0.5}
+				""");
+
+		assertThat(rows).containsExactly(
+				Map.of("id", 1L, "tags", List.of("a", "b"), "geo", row("lat", 15.0, "ok", true, "n", null)),
+				Map.of("s", "ä\n\"", "d", -0.5));
+	}
+
+	@Test
+	void checksumShouldNotDependOnLineEndings() throws IOException {
+		assertThat(checksum("test.csv", "a,b\n1,2\n")).isEqualTo(checksum("test.csv", "a,b\r\n1,2\r\n"))
+			.isNotEqualTo(checksum("test.csv", "a,b\n1,3\n"));
+	}
+
+	@Test
+	void shouldRejectMalformedInput() {
+		assertThatExceptionOfType(IOException.class).isThrownBy(() -> readAll("test.csv", "a\n1,2\n"))
+			.withMessage("test.csv, line 2: Expected at most 1 values, got 2");
+		assertThatExceptionOfType(IOException.class).isThrownBy(() -> readAll("test.csv", "a\n\"1\n"))
+			.withMessage("test.csv, line 2: Unterminated quoted value");
+	}
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', textBlock = """
+			[1]                  | Expected a JSON object
+			null                 | Expected a JSON object
+			"a"                  | Expected a JSON object
+			{"a": }              | Unexpected character ('}'
+			{"a": 1} {"b": 2}    | Trailing token (of type START_OBJECT)
+			{"a": 1, "a": 2}     | Duplicate field 'a'
+			{"a": NaN}           | Non-standard token 'NaN'
+			{"a": 1,}            | Unexpected character ('}'
+			""")
+	void shouldRejectUnsupportedJson(String line, String expectedMessage) {
+		assertThatExceptionOfType(IOException.class).isThrownBy(() -> readAll("test.jsonl", "{}\n" + line + "\n"))
+			.withMessageStartingWith("test.jsonl, line 2: " + expectedMessage);
+	}
+
+	@Test
+	void shouldOnlySupportCsvAndJsonLines() {
+		assertThat(RowReader.isSupported("a.CSV")).isTrue();
+		assertThat(RowReader.isSupported("a.jsonl")).isTrue();
+		assertThat(RowReader.isSupported("a.json")).isFalse();
+	}
+
+	private static List<Map<String, Object>> readAll(String name, String content) throws IOException {
+		var result = new ArrayList<Map<String, Object>>();
+		try (var rows = RowReader.open(name, new StringReader(content))) {
+			for (var row = rows.next(); row != null; row = rows.next()) {
+				result.add(row);
+			}
+		}
+		return result;
+	}
+
+	private static int checksum(String name, String content) throws IOException {
+		try (var rows = RowReader.open(name, new StringReader(content))) {
+			while (rows.next() != null) {
+				// Only the checksum is of interest
+			}
+			return rows.getChecksum();
+		}
+	}
+
+	private static Map<String, Object> row(Object... keysAndValues) {
+		var result = new HashMap<String, Object>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			result.put((String) keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+
+/**
+ * Measures the time from process start to the first applied migration. Meant to be run in
+ * a fresh process, either on the JVM or as native image, see {@link StartupBenchmarkIT}.
+ * Takes the URL, user, password and the location of the migrations as arguments and
+ * reports the result on standard out.
+ *
+ * @author Michael J. Simons
+ */
+final class StartupBenchmark {
+
+	static final String RESULT_PREFIX = "startup-to-first-migration-ms=";
+
+	private StartupBenchmark() {
+	}
+
+	public static void main(String... args) {
+		var processStart = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+		var firstMigration = new AtomicReference<Instant>();
+
+		Flyway.configure()
+			.sqlMigrationSuffixes(".sql", ".cypher")
+			.dataSource(args[0], args[1], args[2])
+			.locations(args[3])
+			.callbacks(new FirstMigrationCallback(firstMigration))
+			.load()
+			.migrate();
+
+		if (firstMigration.get() == null) {
+			throw new IllegalStateException("No migration has been applied");
+		}
+		System.out.println(RESULT_PREFIX + Duration.between(processStart, firstMigration.get()).toMillis());
+	}
+
+	private record FirstMigrationCallback(AtomicReference<Instant> firstMigration) implements Callback {
+
+		@Override
+		public boolean supports(Event event, Context context) {
+			return event == Event.AFTER_EACH_MIGRATE;
+		}
+
+		@Override
+		public boolean canHandleInTransaction(Event event, Context context) {
+			return true;
+		}
+
+		@Override
+		public void handle(Event event, Context context) {
+			this.firstMigration.compareAndSet(null, Instant.now());
+		}
+
+		@Override
+		public String getCallbackName() {
+			return "first-migration";
+		}
+
+	}
+
+}
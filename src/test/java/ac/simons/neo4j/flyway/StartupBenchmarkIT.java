@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.Neo4jContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link StartupBenchmark} in a fresh process on the JVM and, if the {@code native}
+ * profile has built it, as native image. Enabled with
+ * {@code -Dneo4j-flyway.benchmark=true}.
+ */
+@SuppressWarnings("SqlNoDataSourceInspection")
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "neo4j-flyway.benchmark", matches = "true")
+class StartupBenchmarkIT {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StartupBenchmarkIT.class);
+
+	private static final int RUNS = 5;
+
+	@SuppressWarnings("resource") // On purpose to reuse this
+	protected final Neo4jContainer<?> neo4j = new Neo4jContainer<>(System.getProperty("neo4j-jdbc.default-neo4j-image"))
+		.withEnv("NEO4J_ACCEPT_LICENSE_AGREEMENT", "yes")
+		.waitingFor(Neo4jContainer.WAIT_FOR_BOLT)
+		.withReuse(true);
+
+	@BeforeAll
+	void startNeo4j() {
+		this.neo4j.start();
+	}
+
+	@BeforeEach
+	void prepareData() throws SQLException {
+		clean();
+	}
+
+	@Test
+	void jvm() throws Exception {
+		var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		benchmark("JVM", List.of(java, "-cp", System.getProperty("java.class.path"), StartupBenchmark.class.getName()));
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "neo4j-flyway.benchmark.native-image", matches = ".+")
+	void nativeImage() throws Exception {
+		benchmark("native image", List.of(System.getProperty("neo4j-flyway.benchmark.native-image")));
+	}
+
+	private void benchmark(String name, List<String> command) throws Exception {
+		var migrations = Path.of(getClass().getResource("/migrations000").toURI());
+		var arguments = List.of("jdbc:neo4j://%s:%d".formatted(this.neo4j.getHost(), this.neo4j.getMappedPort(7687)),
+				"neo4j", this.neo4j.getAdminPassword(), "filesystem:" + migrations);
+
+		var timings = new ArrayList<Long>();
+		for (int i = 0; i < RUNS; ++i) {
+			clean();
+			var fullCommand = new ArrayList<>(command);
+			fullCommand.addAll(arguments);
+			timings.add(run(fullCommand));
+		}
+		var median = timings.stream().sorted().toList().get(RUNS / 2);
+		LOG.info("Startup to first migration ({}): median {} ms, runs {}", name, median, timings);
+		assertThat(median).isPositive();
+	}
+
+	private static long run(List<String> command) throws IOException, InterruptedException {
+		var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		assertThat(process.waitFor(2, TimeUnit.MINUTES)).isTrue();
+		assertThat(process.exitValue()).withFailMessage(output).isZero();
+		return output.lines()
+			.filter(line -> line.startsWith(StartupBenchmark.RESULT_PREFIX))
+			.map(line -> Long.parseLong(line.substring(StartupBenchmark.RESULT_PREFIX.length()).trim()))
+			.findFirst()
+			.orElseThrow(() -> new AssertionError("No result in " + output));
+	}
+
+	private void clean() throws SQLException {
+		try (var con = DriverManager.getConnection(
+				"jdbc:neo4j://%s:%d".formatted(this.neo4j.getHost(), this.neo4j.getMappedPort(7687)), "neo4j",
+				this.neo4j.getAdminPassword()); var stmt = con.createStatement()) {
+			stmt.executeUpdate("MATCH (n) DETACH DELETE n");
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementMarkersTests {
+
+	private static final String QUERY = "/*+ NEO4J FORCE_CYPHER */ MATCH (n) RETURN n";
+
+	@Test
+	void shouldMarkStatementsOnlyWhileActive() throws SQLException {
+		var standIn = new StandInConnection();
+		var connection = StatementMarkers.wrap(standIn.connection());
+		var marker = StatementMarkers.newMarker();
+
+		connection.prepareStatement(QUERY);
+		StatementMarkers.apply(marker, () -> prepare(connection));
+
+		assertThat(standIn.prepared).containsExactly(QUERY, QUERY + "\n" + marker);
+	}
+
+	@Test
+	void shouldCancelStatementsOfActiveMarker() {
+		var standIn = new StandInConnection();
+		var connection = StatementMarkers.wrap(standIn.connection());
+		var outer = StatementMarkers.newMarker();
+		var inner = StatementMarkers.newMarker();
+
+		var cancelled = StatementMarkers.apply(outer, () -> {
+			prepare(connection);
+			return StatementMarkers.apply(inner, () -> {
+				prepare(connection);
+				return StatementMarkers.cancel(inner);
+			});
+		});
+
+		assertThat(cancelled).isOne();
+		assertThat(standIn.cancelled).containsExactly(QUERY + "\n" + outer + "\n" + inner);
+		assertThat(StatementMarkers.cancel(outer)).isZero();
+	}
+
+	private static PreparedStatement prepare(Connection connection) {
+		try {
+			return connection.prepareStatement(QUERY);
+		}
+		catch (SQLException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * A local stand-in for a connection, recording prepared and cancelled statements.
+	 */
+	private static final class StandInConnection {
+
+		private final List<String> prepared = new ArrayList<>();
+
+		private final List<String> cancelled = new ArrayList<>();
+
+		Connection connection() {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "prepareStatement" -> statement((String) args[0]);
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+		private PreparedStatement statement(String sql) {
+			this.prepared.add(sql);
+			return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> switch (method.getName()) {
+						case "isClosed" -> false;
+						case "cancel" -> {
+							this.cancelled.add(sql);
+							yield null;
+						}
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementShapeTests {
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', quoteCharacter = '^', textBlock = """
+			CREATE (:Person {id: 1, name: 'a'})|CREATE (:Person {id: row.p0, name: row.p1})
+			CREATE (:Person {id: 1, name: 'a'});|CREATE (:Person {id: row.p0, name: row.p1})
+			CREATE (a:A {v: 1.5})-[:R {w: 2e3}]->(b:B {v: "x"})|CREATE (a:A {v: row.p0})-[:R {w: row.p1}]->(b:B {v: row.p2})
+			CREATE (:A {v: [1, 2], t: true, n: null})|CREATE (:A {v: [row.p0, row.p1], t: true, n: null})
+			CREATE (`Label 1`:A {v: -1})|CREATE (`Label 1`:A {v: -row.p0})
+			CREATE (n:A) SET n.v = 'x'|CREATE (n:A) SET n.v = row.p0
+			MERGE (n:A {id: 1}) ON CREATE SET n.c = 1 ON MATCH SET n.c = n.c + 1|MERGE (n:A {id: row.p0}) ON CREATE SET n.c = row.p1 ON MATCH SET n.c = n.c + row.p2
+			CREATE (:A {v: 'a // b', w: 'c /* d */'})|CREATE (:A {v: row.p0, w: row.p1})
+			""")
+	void shouldExtractLiterals(String statement, String expectedTemplate) {
+		var shape = StatementShape.of(statement);
+		assertThat(shape).hasValueSatisfying(s -> assertThat(s.template()).isEqualTo(expectedTemplate));
+	}
+
+	@Test
+	void shouldKeepLeadingCommentsAndHints() {
+		var shape = StatementShape.of("/*+ NEO4J FORCE_CYPHER */ // Seed\nCREATE (:A {v: 1})").orElseThrow();
+		assertThat(shape.toUnwind())
+			.isEqualTo("/*+ NEO4J FORCE_CYPHER */ // Seed\nUNWIND $1 AS row\nCREATE (:A {v: row.p0})");
+	}
+
+	@Test
+	void shouldUnescapeStrings() {
+		var shape = StatementShape.of("CREATE (:A {a: 'it\\'s', b: \"x\\ty\", c: '\\u00e4', d: '\\\\'})").orElseThrow();
+		assertThat(shape.literals()).containsExactly("it's", "x\ty", "ä", "\\");
+	}
+
+	@Test
+	void shouldTypeNumbers() {
+		var shape = StatementShape.of("CREATE (:A {a: 1, b: 1.5, c: 1e3, d: 9223372036854775807})").orElseThrow();
+		assertThat(shape.literals()).containsExactly(1L, 1.5, 1000.0, Long.MAX_VALUE);
+		assertThat(shape.toRow()).containsExactly(Map.entry("p0", 1L), Map.entry("p1", 1.5), Map.entry("p2", 1000.0),
+				Map.entry("p3", Long.MAX_VALUE));
+	}
+
+	@Test
+	void shapesShouldOnlyDifferInLiterals() {
+		var a = StatementShape.of("CREATE (:Person {id: 1, name: 'a'})").orElseThrow();
+		var b = StatementShape.of("CREATE (:Person {id: 2, name: \"b\"})").orElseThrow();
+		var c = StatementShape.of("CREATE (:Person {name: 'c', id: 3})").orElseThrow();
+		var d = StatementShape.of("/*+ NEO4J FORCE_CYPHER */ CREATE (:Person {id: 4, name: 'd'})").orElseThrow();
+
+		assertThat(a.isCompatibleWith(b)).isTrue();
+		assertThat(a.isCompatibleWith(c)).isFalse();
+		assertThat(a.isCompatibleWith(d)).isFalse();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "MATCH (a:A {id: 1}) CREATE (a)-[:R]->(:B {id: 2})",
+			"OPTIONAL MATCH (a:A {id: 1}) CREATE (:B {id: 2})", "CREATE (a:A {id: 1}) WITH a CREATE (:B {id: 2})",
+			"CREATE (a:A {id: 1}) RETURN a", "MERGE (a:A {id: 1}) MERGE (b:A {id: 2})",
+			"MERGE (a:A {id: 1}) CREATE (b:A {id: 2})", "CREATE (a:A {id: 1}) MERGE (b:A {id: 2})",
+			"CREATE (n:A {id: $id})", "CREATE (row:A {id: 1})", "CREATE (n:A {id: 0x1F})", "CREATE (n:A {id: .5})",
+			"CREATE (n:A {id: 99999999999999999999})", "CREATE (:A {v: 'unterminated})",
+			"CREATE (:A {v: 1}); CREATE (:A {v: 2})", "CREATE INDEX a FOR (n:A) ON (n.v)",
+			"CREATE CONSTRAINT a FOR (n:A) REQUIRE n.v IS UNIQUE", "CREATE DATABASE foo",
+			"CREATE (a:A) FOREACH (i IN [1, 2] | CREATE (:B {i: i}))", "CALL { CREATE (:A {v: 1}) }",
+			"UNWIND [1, 2] AS i CREATE (:A {v: i})", "CREATE (:A {c: COUNT { (:B) }})",
+			"MATCH (a:A {id: 1}) DETACH DELETE a" })
+	void shouldNotCoalesceOrderDependentOrUnsupportedStatements(String statement) {
+		assertThat(StatementShape.of(statement)).isEmpty();
+	}
+
+	@Test
+	void rowsShouldMatchPlaceholders() {
+		var shapes = List.of("CREATE (:A {v: 1, w: 'a'})", "CREATE (:A {v: 2, w: 'b'})")
+			.stream()
+			.map(StatementShape::of)
+			.map(o -> o.orElseThrow().toRow())
+			.toList();
+		assertThat(shapes).containsExactly(Map.of("p0", 1L, "p1", "a"), Map.of("p0", 2L, "p1", "b"));
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ac.simons.neo4j.flyway;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThrottleTests {
+
+	@Test
+	void shouldHalveSlowBatchesAndPause() throws SQLException {
+		var throttle = new Throttle(Duration.ofMillis(10), 0);
+		assertThat(throttle.batchSize(1000)).isEqualTo(1000);
+
+		var start = System.nanoTime();
+		throttle.completed(1000, TimeUnit.MILLISECONDS.toNanos(30));
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+		assertThat(throttle.batchSize(1000)).isEqualTo(500);
+		assertThat(Neo4jFlywayMetrics.get().getThrottledBatchSize()).isEqualTo(500);
+	}
+
+	@Test
+	void shouldGrowFastBatchesUpToTheRequestedSize() throws SQLException {
+		var throttle = new Throttle(Duration.ofSeconds(1), 0);
+		throttle.completed(100, TimeUnit.MILLISECONDS.toNanos(1));
+		assertThat(throttle.batchSize(1000)).isEqualTo(125);
+		assertThat(throttle.batchSize(50)).isEqualTo(50);
+		throttle.completed(1, TimeUnit.MILLISECONDS.toNanos(1));
+		assertThat(throttle.batchSize(1000)).isEqualTo(2);
+	}
+
+	@Test
+	void shouldPaceToTheMaximumRate() throws SQLException {
+		var throttle = new Throttle(Duration.ofSeconds(1), 1000);
+		var start = System.nanoTime();
+		throttle.completed(50, TimeUnit.MILLISECONDS.toNanos(1));
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(49));
+		assertThat((long) Neo4jFlywayMetrics.get().getThrottledRowsPerSecond()).isBetween(990L, 1000L);
+	}
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', textBlock = """
+			CALL { CREATE (:A) } IN TRANSACTIONS|CALL { CREATE (:A) } IN TRANSACTIONS OF 100 ROWS
+			CALL { CREATE (:A) } IN TRANSACTIONS OF 10 ROWS|CALL { CREATE (:A) } IN TRANSACTIONS OF 10 ROWS
+			CALL { CREATE (:A) } IN TRANSACTIONS OF 5000 ROWS|CALL { CREATE (:A) } IN TRANSACTIONS OF 100 ROWS
+			CALL { CREATE (:A) } IN 4 CONCURRENT TRANSACTIONS OF 1 ROW|CALL { CREATE (:A) } IN 4 CONCURRENT TRANSACTIONS OF 1 ROW
+			CALL { CREATE (:A) } in transactions on error continue|CALL { CREATE (:A) } in transactions OF 100 ROWS on error continue
+			CALL { CREATE (:A) } IN TRANSACTIONS OF $n ROWS|CALL { CREATE (:A) } IN TRANSACTIONS OF $n ROWS
+			""")
+	void shouldLimitRowsPerTransaction(String statement, String expected) throws SQLException {
+		var throttle = new Throttle(Duration.ofSeconds(1), 0);
+		throttle.completed(200, TimeUnit.SECONDS.toNanos(1) + 1);
+		assertThat(throttle.withRowsPerTransaction(statement)).isEqualTo(expected);
+	}
+
+	@Test
+	void throttledStatementsShouldOnlyGetTheirRowsPerTransaction() throws SQLException {
+		var throttle = new Throttle(Duration.ofSeconds(1), 0);
+		throttle.completed(800, TimeUnit.MILLISECONDS.toNanos(1));
+		var statement = new ThrottledStatement(parsed("CALL { CREATE (:A) } IN TRANSACTIONS"), throttle);
+		var executions = new ArrayList<String>();
+
+		var results = statement.execute(new JdbcTemplate(connection(executions), Types.NULL), null,
+				new FluentConfiguration());
+
+		assertThat(results.getResults()).isEmpty();
+		assertThat((Throwable) results.getException()).isNull();
+		assertThat(executions).containsExactly("CALL { CREATE (:A) } IN TRANSACTIONS OF 1000 ROWS");
+		assertThat(throttle.batchSize(5000)).isEqualTo(1000);
+	}
+
+	private static SqlStatement parsed(String sql) {
+		return (SqlStatement) Proxy.newProxyInstance(ThrottleTests.class.getClassLoader(),
+				new Class<?>[] { SqlStatement.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "getSql" -> sql;
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static Connection connection(List<String> executions) {
+		var statement = (Statement) Proxy.newProxyInstance(ThrottleTests.class.getClassLoader(),
+				new Class<?>[] { Statement.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "execute" -> {
+						executions.add((String) args[0]);
+						yield false;
+					}
+					case "getUpdateCount" -> -1;
+					case "getMoreResults" -> false;
+					case "getWarnings", "setEscapeProcessing" -> null;
+					case "close" -> null;
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+		return (Connection) Proxy.newProxyInstance(ThrottleTests.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "createStatement" -> statement;
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+}
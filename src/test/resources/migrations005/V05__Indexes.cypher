@@ -0,0 +1,4 @@
+/*+ NEO4J FORCE_CYPHER */ UNWIND range(1, 200000) AS i CREATE (:V05__Indexes {a: i, b: toString(i)});
+/*+ NEO4J FORCE_CYPHER */ CREATE INDEX v05_a IF NOT EXISTS FOR (n:V05__Indexes) ON (n.a);
+/*+ NEO4J FORCE_CYPHER */ CREATE INDEX v05_b IF NOT EXISTS FOR (n:V05__Indexes) ON (n.b);
+/*+ NEO4J FORCE_CYPHER */ MATCH (n:V05__Indexes) USING INDEX n:V05__Indexes(a) WHERE n.a = 1 CREATE (:V05__Checked);
@@ -0,0 +1 @@
+/*+ NEO4J FORCE_CYPHER */ MERGE (n:R__Repeatable) SET n.runs = coalesce(n.runs, 0) + 1
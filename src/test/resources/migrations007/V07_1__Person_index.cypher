@@ -0,0 +1 @@
+/*+ NEO4J FORCE_CYPHER */ CREATE INDEX v07_person_id IF NOT EXISTS FOR (n:V07__Person) ON (n.id);
@@ -0,0 +1,39 @@
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 1, name: 'Person 1', score: 1.5, nick: "p\\t1"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 2, name: 'Person 2', score: 2.5, nick: "p\\t2"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 3, name: 'Person 3', score: 3.5, nick: "p\\t3"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 4, name: 'Person 4', score: 4.5, nick: "p\\t4"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 5, name: 'Person 5', score: 5.5, nick: "p\\t5"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 6, name: 'Person 6', score: 6.5, nick: "p\\t6"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 7, name: 'Person 7', score: 7.5, nick: "p\\t7"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 8, name: 'Person 8', score: 8.5, nick: "p\\t8"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 9, name: 'Person 9', score: 9.5, nick: "p\\t9"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 10, name: 'Person 10', score: 10.5, nick: "p\\t10"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 11, name: 'Person 11', score: 11.5, nick: "p\\t11"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 12, name: 'Person 12', score: 12.5, nick: "p\\t12"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 13, name: 'Person 13', score: 13.5, nick: "p\\t13"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 14, name: 'Person 14', score: 14.5, nick: "p\\t14"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 15, name: 'Person 15', score: 15.5, nick: "p\\t15"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 16, name: 'Person 16', score: 16.5, nick: "p\\t16"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 17, name: 'Person 17', score: 17.5, nick: "p\\t17"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 18, name: 'Person 18', score: 18.5, nick: "p\\t18"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 19, name: 'Person 19', score: 19.5, nick: "p\\t19"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 20, name: 'Person 20', score: 20.5, nick: "p\\t20"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 21, name: 'Person 21', score: 21.5, nick: "p\\t21"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 22, name: 'Person 22', score: 22.5, nick: "p\\t22"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 23, name: 'Person 23', score: 23.5, nick: "p\\t23"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 24, name: 'Person 24', score: 24.5, nick: "p\\t24"});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Person {id: 25, name: 'Person 25', score: 25.5, nick: "p\\t25"});
+/*+ NEO4J FORCE_CYPHER */ MERGE (c:V07__City {name: 'City 1'}) ON CREATE SET c.visits = 1 ON MATCH SET c.visits = c.visits + 1;
+/*+ NEO4J FORCE_CYPHER */ MERGE (c:V07__City {name: 'City 2'}) ON CREATE SET c.visits = 1 ON MATCH SET c.visits = c.visits + 1;
+/*+ NEO4J FORCE_CYPHER */ MERGE (c:V07__City {name: 'City 3'}) ON CREATE SET c.visits = 1 ON MATCH SET c.visits = c.visits + 1;
+/*+ NEO4J FORCE_CYPHER */ MERGE (c:V07__City {name: 'City 2'}) ON CREATE SET c.visits = 1 ON MATCH SET c.visits = c.visits + 1;
+/*+ NEO4J FORCE_CYPHER */ MERGE (c:V07__City {name: 'City 1'}) ON CREATE SET c.visits = 1 ON MATCH SET c.visits = c.visits + 1;
+/*+ NEO4J FORCE_CYPHER */ MERGE (c:V07__City {name: 'City 4'}) ON CREATE SET c.visits = 1 ON MATCH SET c.visits = c.visits + 1;
+/*+ NEO4J FORCE_CYPHER */ MATCH (p:V07__Person) WHERE p.id <= 4 MATCH (c:V07__City {name: 'City ' + toString(p.id)}) CREATE (p)-[:LIVES_IN]->(c);
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Tag {name: 'it\'s tag 1', rank: 5});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Tag {name: 'it\'s tag 2', rank: 4});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Tag {name: 'it\'s tag 3', rank: 3});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Tag {name: 'it\'s tag 4', rank: 2});
+/*+ NEO4J FORCE_CYPHER */ CREATE (:V07__Tag {name: 'it\'s tag 5', rank: 1});
+/*+ NEO4J FORCE_CYPHER */ MERGE (a:V07__Pair {id: 1}) MERGE (b:V07__Pair {id: 2});
+/*+ NEO4J FORCE_CYPHER */ MERGE (a:V07__Pair {id: 2}) MERGE (b:V07__Pair {id: 3});
@@ -0,0 +1,4 @@
+/*+ NEO4J FORCE_CYPHER */
+UNWIND $rows AS row
+CREATE (p:V08__Person {id: toInteger(row.id), name: row.name})
+SET p.city = row.city;
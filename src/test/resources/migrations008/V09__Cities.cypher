@@ -0,0 +1,5 @@
+/*+ NEO4J FORCE_CYPHER */
+// neo4j-flyway: rows=cities.jsonl batch-size=2 checksum=-66473981
+UNWIND $rows AS row
+MERGE (c:V09__City {name: row.name})
+SET c.population = row.population, c.districts = row.districts, c.lat = row.location.lat;
@@ -0,0 +1,4 @@
+/*+ NEO4J FORCE_CYPHER */
+// neo4j-flyway: rows=cities.jsonl checksum=42
+UNWIND $rows AS row
+CREATE (:V10__Broken {name: row.name});
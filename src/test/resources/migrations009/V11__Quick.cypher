@@ -0,0 +1,3 @@
+/*+ NEO4J FORCE_CYPHER */
+// neo4j-flyway: migration-timeout=1m
+CREATE (:V11__Quick);
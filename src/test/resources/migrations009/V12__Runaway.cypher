@@ -0,0 +1,5 @@
+/*+ NEO4J FORCE_CYPHER */
+// neo4j-flyway: timeout=1s
+UNWIND range(1, 2000000000) AS i
+WITH i WHERE i < 0
+CREATE (:V12__Never {i: i});
@@ -0,0 +1,13 @@
+/*+ NEO4J FORCE_CYPHER */
+CREATE (:V13__Order {id: 1}), (:V13__Order {id: 2}), (:V13__Invoice {id: 1});
+
+/*+ NEO4J FORCE_CYPHER */
+// neo4j-flyway: parallel=2
+MATCH (o:V13__Order) SET o.backfilled = true;
+
+/*+ NEO4J FORCE_CYPHER */
+MATCH (i:V13__Invoice) SET i.backfilled = true;
+
+/*+ NEO4J FORCE_CYPHER */
+// neo4j-flyway: end-parallel
+MATCH (n) WHERE n:V13__Order OR n:V13__Invoice SET n.done = n.backfilled;
@@ -0,0 +1,8 @@
+/*+ NEO4J FORCE_CYPHER */
+// neo4j-flyway: parallel
+UNWIND range(1, 2000000000) AS i
+WITH i WHERE i < 0
+CREATE (:V14__Never {i: i});
+
+/*+ NEO4J FORCE_CYPHER */
+MATCH (o:V13__Order) RETURN o.id / 0;